@@ -2,8 +2,10 @@ package com.securemydocs;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class SecuremydocsApplication {
     public static void main(String[] args) {
         SpringApplication.run(SecuremydocsApplication.class, args);
@@ -0,0 +1,48 @@
+package com.securemydocs.config;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.securemydocs.service.SegmentAuditLogStore;
+
+// GET /actuator/auditchain: recomputes the hash chain of every audit segment and reports
+// per segment whether its records are intact and it continues from the one before, and
+// whether the chain still holds the record last anchored in the database
+@Component
+@Endpoint(id = "auditchain")
+@ConditionalOnProperty(name = "app.audit.store", havingValue = "segments")
+public class AuditChainEndpoint {
+
+    @Autowired
+    private SegmentAuditLogStore segmentAuditLogStore;
+
+    @ReadOperation
+    public Map<String, Object> auditChain() {
+        long started = System.nanoTime();
+        SegmentAuditLogStore.ChainReport chain = segmentAuditLogStore.verify();
+        List<SegmentAuditLogStore.SegmentReport> segments = chain.segments();
+
+        long records = 0;
+        boolean intact = chain.matchesAnchor();
+        for (SegmentAuditLogStore.SegmentReport segment : segments) {
+            records += segment.records();
+            intact &= segment.valid() && segment.linked();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("intact", intact);
+        result.put("records", records);
+        result.put("anchoredSequence", chain.anchoredSequence());
+        result.put("matchesAnchor", chain.matchesAnchor());
+        result.put("millis", (System.nanoTime() - started) / 1_000_000);
+        result.put("segments", segments);
+        return result;
+    }
+}
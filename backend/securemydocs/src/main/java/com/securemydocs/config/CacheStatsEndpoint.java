@@ -0,0 +1,64 @@
+package com.securemydocs.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.securemydocs.service.UserCache;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// GET /actuator/cachestats: hit/miss counts and ratios for every Hibernate
+// second-level cache region, the query cache and the in-process auth caches
+@Component
+@Endpoint(id = "cachestats")
+public class CacheStatsEndpoint {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserCache userCache;
+
+    @ReadOperation
+    public Map<String, Object> cacheStats() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> stats = counters(region.getHitCount(), region.getMissCount());
+            stats.put("puts", region.getPutCount());
+            stats.put("elementsInMemory", region.getElementCountInMemory());
+            regions.put(regionName, stats);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        result.put("secondLevelCache", counters(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount()));
+        result.put("regions", regions);
+        result.put("queryCache", counters(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+        result.put("jwtTokenCache", counters(JwtProvider.getTokenCache().getHitCount(), JwtProvider.getTokenCache().getMissCount()));
+        result.put("userCache", counters(userCache.getHitCount(), userCache.getMissCount()));
+        return result;
+    }
+
+    private static Map<String, Object> counters(long hits, long misses) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        long total = hits + misses;
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hits / total);
+        return stats;
+    }
+}
@@ -0,0 +1,13 @@
+package com.securemydocs.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marks a controller parameter that should receive the authenticated User,
+// resolved once per request by CurrentUserArgumentResolver
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CurrentUser {
+}
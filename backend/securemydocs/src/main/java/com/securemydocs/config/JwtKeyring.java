@@ -0,0 +1,54 @@
+package com.securemydocs.config;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.crypto.SecretKey;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+// Immutable snapshot of the HMAC keys accepted for verification, plus the kid
+// used for signing new tokens. JwtProvider swaps whole snapshots, so lookups on
+// the request path are a plain map read with no locking.
+public final class JwtKeyring {
+
+    private final Map<String, SecretKey> keys;
+    private final String signingKid;
+
+    public JwtKeyring(Map<String, SecretKey> keys, String signingKid) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("JWT keyring must contain at least one key");
+        }
+        if (!keys.containsKey(signingKid)) {
+            throw new IllegalArgumentException("Signing key id not found in keyring: " + signingKid);
+        }
+        this.keys = Collections.unmodifiableMap(new LinkedHashMap<>(keys));
+        this.signingKid = signingKid;
+    }
+
+    // Single random key, only valid for this JVM. Used when nothing is configured.
+    public static JwtKeyring ephemeral() {
+        String kid = "ephemeral-" + UUID.randomUUID();
+        return new JwtKeyring(Map.of(kid, Keys.secretKeyFor(SignatureAlgorithm.HS256)), kid);
+    }
+
+    public SecretKey getKey(String kid) {
+        return keys.get(kid);
+    }
+
+    public String getSigningKid() {
+        return signingKid;
+    }
+
+    public SecretKey getSigningKey() {
+        return keys.get(signingKid);
+    }
+
+    public Set<String> getKids() {
+        return keys.keySet();
+    }
+}
@@ -0,0 +1,126 @@
+package com.securemydocs.config;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.Key;
+import java.security.KeyStore;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.SecretKey;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+
+// Loads the shared JWT keyring and installs it into JwtProvider so every node
+// signs and verifies with the same keys. Keys come from app.jwt.keys
+// ("kid:base64secret,...") and/or a PKCS12 keystore of secret-key entries whose
+// aliases are the kids. The keystore is re-read on a schedule: to rotate, add a new
+// entry to the shared file (it becomes the signing key once it is the newest, unless
+// app.jwt.signing-kid pins one) and remove the old entry once its tokens have expired.
+@Component
+public class JwtKeyringLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyringLoader.class);
+
+    @Value("${app.jwt.keys:}")
+    private String configuredKeys;
+
+    @Value("${app.jwt.signing-kid:}")
+    private String signingKid;
+
+    @Value("${app.jwt.keystore.path:}")
+    private String keystorePath;
+
+    @Value("${app.jwt.keystore.password:}")
+    private String keystorePassword;
+
+    private long keystoreLastModified = -1;
+
+    @PostConstruct
+    public void init() throws Exception {
+        if (configuredKeys.isBlank() && keystorePath.isBlank()) {
+            logger.warn("No JWT keys configured (app.jwt.keys / app.jwt.keystore.path); "
+                    + "using an ephemeral key, tokens will not survive a restart or work across nodes");
+            return;
+        }
+        load();
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.keyring.reload-interval-ms:60000}")
+    public void reload() {
+        if (keystorePath.isBlank()) {
+            return;
+        }
+        try {
+            long lastModified = Files.getLastModifiedTime(Paths.get(keystorePath)).toMillis();
+            if (lastModified != keystoreLastModified) {
+                load();
+            }
+        } catch (Exception e) {
+            // Keep serving with the current keyring rather than locking everyone out
+            logger.error("Failed to reload JWT keystore {}, keeping current keys", keystorePath, e);
+        }
+    }
+
+    private synchronized void load() throws Exception {
+        Map<String, SecretKey> keys = new LinkedHashMap<>();
+        Map<String, Date> createdAt = new LinkedHashMap<>();
+        String newestKid = null;
+
+        for (String entry : configuredKeys.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int sep = entry.indexOf(':');
+            if (sep <= 0) {
+                throw new IllegalArgumentException("app.jwt.keys entries must look like kid:base64secret");
+            }
+            String kid = entry.substring(0, sep);
+            keys.put(kid, Keys.hmacShaKeyFor(Decoders.BASE64.decode(entry.substring(sep + 1))));
+            newestKid = kid;
+        }
+
+        if (!keystorePath.isBlank()) {
+            Path path = Paths.get(keystorePath);
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            char[] password = keystorePassword.toCharArray();
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            try (InputStream in = Files.newInputStream(path)) {
+                keyStore.load(in, password);
+            }
+            Date newest = null;
+            for (String alias : Collections.list(keyStore.aliases())) {
+                Key key = keyStore.getKey(alias, password);
+                if (!(key instanceof SecretKey)) {
+                    continue;
+                }
+                keys.put(alias, Keys.hmacShaKeyFor(key.getEncoded()));
+                Date created = keyStore.getCreationDate(alias);
+                createdAt.put(alias, created);
+                if (newest == null || (created != null && created.after(newest))) {
+                    newest = created;
+                    newestKid = alias;
+                }
+            }
+            keystoreLastModified = lastModified;
+        }
+
+        String kid = signingKid.isBlank() ? newestKid : signingKid;
+        JwtKeyring keyring = new JwtKeyring(keys, kid);
+        JwtProvider.installKeyring(keyring);
+        logger.info("Installed JWT keyring with {} key(s), signing with kid {}", keys.size(), kid);
+    }
+}
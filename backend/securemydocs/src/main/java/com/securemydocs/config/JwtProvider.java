@@ -1,26 +1,70 @@
 package com.securemydocs.config;
 
+import java.security.Key;
 import java.util.Date;
-import javax.crypto.SecretKey;
 import org.springframework.security.core.Authentication;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
 
 public class JwtProvider {
 
-    private static SecretKey key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    // Replaced as a whole by JwtKeyringLoader; readers only ever see a complete snapshot
+    private static volatile JwtKeyring keyring = JwtKeyring.ephemeral();
+
+    // JwtParser is immutable and thread-safe once built, so one instance is shared.
+    // The signing key is picked per token from its kid header.
+    private static final JwtParser parser = Jwts.parserBuilder().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            JwtKeyring current = keyring;
+            String kid = header.getKeyId();
+            Key key = kid == null ? current.getSigningKey() : current.getKey(kid);
+            if (key == null) {
+                throw new SignatureException("Unknown JWT key id: " + kid);
+            }
+            return key;
+        }
+    }).build();
+
+    private static final JwtTokenCache tokenCache = new JwtTokenCache();
 
     public static String generatedToken(Authentication auth) {
-        String jwt = Jwts.builder().setIssuer("CodewithSantu").setIssuedAt(new Date()).setExpiration(new Date(new Date().getTime() + 86400000)).claim("email", auth.getName()).signWith(key).compact();
+        JwtKeyring current = keyring;
+        String jwt = Jwts.builder().setHeaderParam(JwsHeader.KEY_ID, current.getSigningKid()).setIssuer("CodewithSantu").setIssuedAt(new Date()).setExpiration(new Date(new Date().getTime() + 86400000)).claim("email", auth.getName()).signWith(current.getSigningKey()).compact();
         return jwt;
     }
 
     public static String getEmailFromJwtToken(String jwt) {
         jwt = jwt.substring(7);
-        Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jwt).getBody();
+        String cached = tokenCache.getEmail(jwt);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parser.parseClaimsJws(jwt).getBody();
         String email = String.valueOf(claims.get("email"));
+        tokenCache.put(jwt, email, claims.getExpiration());
         return email;
     }
+
+    public static void installKeyring(JwtKeyring newKeyring) {
+        JwtKeyring previous = keyring;
+        keyring = newKeyring;
+        // Tokens signed with a retired key must stop verifying straight away
+        if (!newKeyring.getKids().containsAll(previous.getKids())) {
+            tokenCache.clear();
+        }
+    }
+
+    public static JwtTokenCache getTokenCache() {
+        return tokenCache;
+    }
+
+    // The keys every node shares, for other signed values such as share-link content grants
+    public static JwtKeyring getKeyring() {
+        return keyring;
+    }
 }
@@ -0,0 +1,102 @@
+package com.securemydocs.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded cache of already verified tokens, keyed by a SHA-256 digest of the raw token
+// so the map never holds bearer credentials. Entries expire at the token's own exp
+// (capped by MAX_TTL_MILLIS) and a hit skips signature verification and claim parsing.
+public class JwtTokenCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+    private static final long MAX_TTL_MILLIS = 15 * 60 * 1000;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public String getEmail(String token) {
+        String key = digest(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.email;
+    }
+
+    public void put(String token, String email, Date expiration) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + MAX_TTL_MILLIS;
+        if (expiration != null) {
+            expiresAt = Math.min(expiresAt, expiration.getTime());
+        }
+        if (expiresAt <= now) {
+            return;
+        }
+        if (entries.size() >= MAX_ENTRIES) {
+            evict(now);
+        }
+        entries.put(digest(token), new Entry(email, expiresAt));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Drop expired entries first; if the cache is still full, drop arbitrary entries
+    // until there is room again. A dropped entry only costs one extra verification.
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() >= MAX_ENTRIES && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Entry {
+        private final String email;
+        private final long expiresAt;
+
+        private Entry(String email, long expiresAt) {
+            this.email = email;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.securemydocs.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.web.servlet.MultipartProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+
+import com.securemydocs.service.UserCache;
+
+import jakarta.servlet.MultipartConfigElement;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private UserCache userCache;
+
+    private final Map<String, String> staticEtags = new ConcurrentHashMap<>();
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new CurrentUserArgumentResolver(userCache));
+    }
+
+    // The frontend build writes .br/.gz next to each asset (frontend/scripts/precompress.js);
+    // EncodedResourceResolver picks the variant matching Accept-Encoding and adds Vary.
+    // Hashed files under /assets never change under the same name, so browsers may keep
+    // them for a year without asking again. index.html names the current hashes, so it
+    // is always revalidated, against an ETag of its content.
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/assets/**")
+                .addResourceLocations("classpath:/static/assets/")
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+
+        registry.addResourceHandler("/index.html")
+                .addResourceLocations("classpath:/static/")
+                .setCacheControl(CacheControl.noCache())
+                .setEtagGenerator(this::contentEtag)
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+    }
+
+    // Classpath resources don't change while the application runs, so each is hashed once
+    private String contentEtag(Resource resource) {
+        return staticEtags.computeIfAbsent(resource.getDescription(), description -> {
+            try {
+                return DigestUtils.md5DigestAsHex(resource.getContentAsByteArray());
+            } catch (IOException e) {
+                return null;
+            }
+        });
+    }
+
+    // Spool multipart uploads into the blob store's staging directory. Tomcat resolves a
+    // relative location against its own temp dir, so the path is made absolute here.
+    @Bean
+    MultipartConfigElement multipartConfigElement(MultipartProperties properties,
+            @Value("${app.storage.local.root:./data/blobs}") String storageRoot) throws IOException {
+        Path staging = Paths.get(storageRoot).toAbsolutePath().normalize().resolve("tmp");
+        Files.createDirectories(staging);
+        properties.setLocation(staging.toString());
+        return properties.createMultipartConfig();
+    }
+}
@@ -9,7 +9,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,7 +23,6 @@ public class jwtValidator<Authentication> extends OncePerRequestFilter {
             try {
                 String email = JwtProvider.getEmailFromJwtToken(jwt);
                 List<GrantedAuthority> authorities = new ArrayList<>();
-                String claims = JwtProvider.getEmailFromJwtToken(jwt);
                 Authentication authentication = (Authentication) new UsernamePasswordAuthenticationToken(email, null, authorities);
                 SecurityContextHolder.getContext().setAuthentication((org.springframework.security.core.Authentication) authentication);
             } catch (Exception e) {
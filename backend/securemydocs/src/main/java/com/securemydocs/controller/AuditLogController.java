@@ -1,11 +1,19 @@
 package com.securemydocs.controller;
 
-import com.securemydocs.model.AuditLog;
+import com.securemydocs.config.CurrentUser;
+import com.securemydocs.model.User;
+import com.securemydocs.request.AuditLogListRequest;
+import com.securemydocs.response.AuditLogEntry;
 import com.securemydocs.service.AuditLogService;
+import com.securemydocs.service.ChangeVersionService;
+import com.securemydocs.service.ExportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -17,32 +25,89 @@ public class AuditLogController {
     @Autowired
     private AuditLogService auditLogService;
 
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    // One page of the current user's history, newest first unless sort=oldest, optionally
+    // limited to [from, to) and one action
+    @GetMapping
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> getCurrentUserAuditLogPage(
+            @CurrentUser User user,
+            @ModelAttribute AuditLogListRequest request,
+            WebRequest webRequest) {
+        String etag = changeVersionService.etag(user.getId(), ChangeVersionService.Scope.AUDIT);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        try {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .eTag(etag)
+                    .body(auditLogService.getLogPage(user.getId(), request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("status", "error", "message", e.getMessage()));
+        }
+    }
+
     // Get audit logs for current user only
     @GetMapping("/current-user")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<List<AuditLog>> getCurrentUserAuditLogs() {
-        List<AuditLog> logs = auditLogService.getLogsForCurrentUser();
-        return ResponseEntity.ok(logs);
+    public ResponseEntity<List<AuditLogEntry>> getCurrentUserAuditLogs(
+            @CurrentUser User user,
+            WebRequest webRequest) {
+        String etag = changeVersionService.etag(user.getId(), ChangeVersionService.Scope.AUDIT);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        List<AuditLogEntry> logs = auditLogService.getLogsForUser(user.getId());
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(logs);
+    }
+
+    // Full history of the current user, oldest first, streamed as it is read
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<StreamingResponseBody> exportCurrentUserAuditLogs(
+            @CurrentUser User user,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        Long userId = user.getId();
+        return exportService.download(format, "audit-log", (exportFormat, out) -> exportService.writeAuditLog(userId, exportFormat, out));
     }
 
     // Create audit log (automatically associates with current user)
     @PostMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<AuditLog> createAuditLog(@RequestBody Map<String, String> request) {
+    public ResponseEntity<?> createAuditLog(@CurrentUser User user, @RequestBody Map<String, String> request) {
         String action = request.get("action");
         String fileName = request.get("fileName");
         
-        AuditLog createdLog = auditLogService.createAuditLog(action, fileName);
-        return ResponseEntity.ok(createdLog);
+        return create(action, fileName, user);
     }
     
     // Alternative: Create audit log with explicit parameters
     @PostMapping("/create")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<AuditLog> createAuditLog(
+    public ResponseEntity<?> createAuditLog(
+            @CurrentUser User user,
             @RequestParam String action,
             @RequestParam String fileName) {
-        AuditLog createdLog = auditLogService.createAuditLog(action, fileName);
-        return ResponseEntity.ok(createdLog);
+        return create(action, fileName, user);
+    }
+
+    private ResponseEntity<?> create(String action, String fileName, User user) {
+        try {
+            AuditLogEntry createdLog = auditLogService.createAuditLog(action, fileName, user);
+            return ResponseEntity.ok(createdLog);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("status", "error", "message", e.getMessage()));
+        }
     }
-}
\ No newline at end of file
+}
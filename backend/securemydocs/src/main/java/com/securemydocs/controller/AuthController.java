@@ -14,7 +14,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -23,11 +22,13 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.securemydocs.request.LoginRequest;
 import com.securemydocs.config.JwtProvider;
+import com.securemydocs.exceptions.PasswordHashingBusyException;
 import com.securemydocs.model.User;
 import com.securemydocs.repository.PasswordResetTokenRepository;
 import com.securemydocs.repository.UserRepository;
 import com.securemydocs.response.AuthResponse;
 import com.securemydocs.service.CustomerUserDetailsService;
+import com.securemydocs.service.PasswordHashingService;
 import com.securemydocs.service.UserService;
 
 @CrossOrigin(origins = "http://localhost:5173")
@@ -45,7 +46,7 @@ public class AuthController {
     private PasswordResetTokenRepository passwordResetTokenRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
 
     @Autowired
     private JavaMailSender mailSender;
@@ -67,7 +68,7 @@ public class AuthController {
         newUser.setEmail(user.getEmail());
         newUser.setFirstName(user.getFirstName());
         newUser.setLastName(user.getLastName());
-        newUser.setPassword(passwordEncoder.encode(user.getPassword()));
+        newUser.setPassword(passwordHashingService.encode(user.getPassword()));
 
         User savedUser = userRepository.save(newUser);
 
@@ -83,7 +84,7 @@ public class AuthController {
 
     //  auth/signin	
     @PostMapping("/signin")
-    public AuthResponse signin(@RequestBody LoginRequest loginRequest) {
+    public AuthResponse signin(@RequestBody LoginRequest loginRequest) throws PasswordHashingBusyException {
 
         Authentication authentication
                 = authentication(loginRequest.getEmail(), loginRequest.getPassword());
@@ -95,15 +96,18 @@ public class AuthController {
         return res;
     }
 
-    private Authentication authentication(String email, String password) {
+    private Authentication authentication(String email, String password) throws PasswordHashingBusyException {
         UserDetails userDetails = customerUserDetails.loadUserByUsername(email);
 
         if (userDetails == null) {
             throw new BadCredentialsException("invalid username");
         }
-        if (!passwordEncoder.matches(password, userDetails.getPassword())) {
+        if (!passwordHashingService.matches(password, userDetails.getPassword())) {
             throw new BadCredentialsException("password not matched");
         }
+        if (passwordHashingService.needsRehash(userDetails.getPassword())) {
+            passwordHashingService.rehashAsync(userDetails.getUsername(), password);
+        }
         return new UsernamePasswordAuthenticationToken(userDetails,
                 null,
                 userDetails.getAuthorities());
@@ -6,15 +6,16 @@ import com.securemydocs.model.Post;
 import com.securemydocs.model.User;
 import com.securemydocs.service.OTPService;
 import com.securemydocs.service.PostService;
-import com.securemydocs.service.UserService;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.securemydocs.config.CurrentUser;
 import com.securemydocs.exceptions.OTPException;
 import com.securemydocs.exceptions.ResourceNotFoundException;
+import com.securemydocs.exceptions.UnauthorizedAccessException;
 
 @RestController
 @RequestMapping("/api/otp")
@@ -23,27 +24,16 @@ public class OTPController {
     @Autowired
     private OTPService otpService;
 
-    @Autowired
-    private UserService userService;
-
     @Autowired
     private PostService postService;
 
     @PostMapping("/generate/{postId}")
     public ResponseEntity<?> generateOTP(
-            @RequestHeader("Authorization") String jwt,
-            @PathVariable Integer postId) {
+            @CurrentUser User user,
+            @PathVariable Long postId) {
 
         try {
-            User user = userService.findUserByJwt(jwt)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-            Post post = postService.findPostById(postId);
-
-            if (!post.getUser().getId().equals(user.getId())) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body(Map.of("status", "error", "message", "You don't have permission to access this file"));
-            }
+            Post post = postService.findOwnedPost(postId, user.getId());
 
             otpService.generateOTP(post, user);
 
@@ -56,6 +46,9 @@ public class OTPController {
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("status", "error", "message", e.getMessage()));
+        } catch (UnauthorizedAccessException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("status", "error", "message", "You don't have permission to access this file"));
         } catch (OTPException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("status", "error", "message", "Failed to send OTP: " + e.getMessage()));
@@ -67,15 +60,11 @@ public class OTPController {
 
     @PostMapping("/validate/{postId}")
     public ResponseEntity<?> validateOTP(
-            @RequestHeader("Authorization") String jwt,
-            @PathVariable Integer postId,
+            @CurrentUser User user,
+            @PathVariable Long postId,
             @RequestBody Map<String, String> request) {
 
         try {
-            User user = userService.findUserByJwt(jwt)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-            Post post = postService.findPostById(postId);
             String code = request.get("code");
 
             if (code == null || code.trim().isEmpty()) {
@@ -86,14 +75,7 @@ public class OTPController {
                 ));
             }
 
-            if (!post.getUser().getId().equals(user.getId())) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body(Map.of(
-                                "status", "error",
-                                "message", "You don't have permission to access this file",
-                                "valid", false
-                        ));
-            }
+            Post post = postService.findOwnedPost(postId, user.getId());
 
             boolean isValid = otpService.validateOTP(code, post, user);
             if (isValid) {
@@ -117,6 +99,13 @@ public class OTPController {
                             "message", e.getMessage(),
                             "valid", false
                     ));
+        } catch (UnauthorizedAccessException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of(
+                            "status", "error",
+                            "message", "You don't have permission to access this file",
+                            "valid", false
+                    ));
         } catch (OTPException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of(
@@ -1,21 +1,38 @@
 package com.securemydocs.controller;
 
+import com.securemydocs.config.CurrentUser;
 import com.securemydocs.exceptions.ResourceNotFoundException;
 import com.securemydocs.exceptions.UnauthorizedAccessException;
 import com.securemydocs.model.Post;
+import com.securemydocs.request.PostListRequest;
+import com.securemydocs.response.ImportReport;
+import com.securemydocs.response.PostSummary;
+import com.securemydocs.service.BlobDownloadService;
+import com.securemydocs.service.BlobInfo;
+import com.securemydocs.service.BlobStore;
+import com.securemydocs.service.ChangeVersionService;
+import com.securemydocs.service.ExportService;
+import com.securemydocs.service.PostImportService;
 import com.securemydocs.service.PostService;
-import com.securemydocs.service.UserService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 import com.securemydocs.model.User;
 
@@ -23,109 +40,179 @@ import com.securemydocs.model.User;
 @RequestMapping("/api/posts")
 public class PostController {
 
-    @Autowired
-    private UserService userService;
     @Autowired
     private PostService postService;
 
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private BlobDownloadService blobDownloadService;
+
+    @Autowired
+    private PostImportService postImportService;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
     @PostMapping
-    public ResponseEntity<Post> createPost(@RequestHeader("Authorization") String jwt, @RequestBody Post post) throws Exception {
-        Optional<User> reqUser = userService.findUserByJwt(jwt);
-        User user = reqUser.orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        Post createdPost = postService.createNewPost(post, user.getId());
-        return new ResponseEntity<>(createdPost, HttpStatus.CREATED);
+    public ResponseEntity<?> createPost(@CurrentUser User user, @RequestBody Post post) throws Exception {
+        try {
+            Post createdPost = postService.createNewPost(post, user.getId());
+            return new ResponseEntity<>(PostSummary.from(createdPost), HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("status", "error", "message", e.getMessage()));
+        }
     }
 
-    @GetMapping("/{postId}")
-    public ResponseEntity<Post> getPostById(
-            @RequestHeader("Authorization") String jwt,
-            @PathVariable Integer postId) throws ResourceNotFoundException, UnauthorizedAccessException {
+    // Streams the file into the blob store and creates the post pointing at it
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<PostSummary> uploadPost(
+            @CurrentUser User user,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String captions) throws Exception {
+
+        BlobInfo blob = blobStore.put(file);
+        Post createdPost = postService.createPostForBlob(
+                blob, file.getOriginalFilename(), file.getContentType(), captions, user.getId());
+        return new ResponseEntity<>(PostSummary.from(createdPost), HttpStatus.CREATED);
+    }
 
-        Integer userId = userService.findUserByJwt(jwt)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"))
-                .getId();
+    // Bulk creation from NDJSON, one post per line; the report lists the lines that failed
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReport> importPosts(
+            @CurrentUser User user,
+            HttpServletRequest request) throws Exception {
+        return ResponseEntity.ok(postImportService.importPosts(user.getId(), request.getInputStream()));
+    }
+
+    // Every post of the current user, oldest first, streamed as it is read
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPosts(
+            @CurrentUser User user,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        Long userId = user.getId();
+        return exportService.download(format, "posts", (exportFormat, out) -> exportService.writePosts(userId, exportFormat, out));
+    }
 
-        Post post = postService.findPostById(postId);
+    @GetMapping("/{postId}/content")
+    public void downloadPostContent(
+            @CurrentUser User user,
+            @PathVariable Long postId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws ResourceNotFoundException, UnauthorizedAccessException, IOException {
+
+        Post post = postService.findOwnedPost(postId, user.getId());
+        blobDownloadService.writePost(post, request, response);
+    }
 
-        if (!post.getUser().getId().equals(userId)) {
-            throw new UnauthorizedAccessException("You don't have permission to access this resource");
+    // Small JPEG preview, available once the background thumbnail job has run
+    @GetMapping("/{postId}/thumbnail")
+    public void getPostThumbnail(
+            @CurrentUser User user,
+            @PathVariable Long postId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws ResourceNotFoundException, UnauthorizedAccessException, IOException {
+
+        Post post = postService.findOwnedPost(postId, user.getId());
+        if (!BlobStore.isRef(post.getThumbnail())) {
+            throw new ResourceNotFoundException("No preview available for this post");
         }
+        blobDownloadService.write(BlobStore.keyOf(post.getThumbnail()), "preview.jpg", request, response);
+    }
+
+    @GetMapping("/{postId}")
+    public ResponseEntity<PostSummary> getPostById(
+            @CurrentUser User user,
+            @PathVariable Long postId) throws ResourceNotFoundException, UnauthorizedAccessException {
 
-        return ResponseEntity.ok(post);
+        Post post = postService.findOwnedPost(postId, user.getId());
+
+        return ResponseEntity.ok(PostSummary.from(post));
     }
 
     @GetMapping("/user/{userId}")
     @PreAuthorize("#userId == authentication.principal.id")
-    public ResponseEntity<List<Post>> getUserPosts(
-            @PathVariable Integer userId) throws ResourceNotFoundException {
-        return ResponseEntity.ok(postService.findPostByUserId(userId));
+    public ResponseEntity<List<PostSummary>> getUserPosts(
+            @PathVariable Long userId) throws ResourceNotFoundException {
+        return ResponseEntity.ok(postService.findPostSummariesByUserId(userId));
     }
 
     @GetMapping
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<List<Post>> getCurrentUserPosts(
-            @RequestHeader("Authorization") String jwt) throws ResourceNotFoundException {
-        Integer userId = userService.findUserByJwt(jwt)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"))
-                .getId();
-        return ResponseEntity.ok(postService.findPostByUserId(userId));
+    public ResponseEntity<List<PostSummary>> getCurrentUserPosts(
+            @CurrentUser User user,
+            WebRequest webRequest) throws ResourceNotFoundException {
+        String etag = changeVersionService.etag(user.getId(), ChangeVersionService.Scope.POSTS);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(postService.findPostSummariesByUserId(user.getId()));
     }
 
-    @DeleteMapping("/{postId}")
-    public ResponseEntity<Void> deletePost(
-            @RequestHeader("Authorization") String jwt,
-            @PathVariable Integer postId) throws ResourceNotFoundException, UnauthorizedAccessException {
+    @GetMapping("/page")
+    public ResponseEntity<?> getCurrentUserPostPage(
+            @CurrentUser User user,
+            @ModelAttribute PostListRequest request) {
+        try {
+            return ResponseEntity.ok(postService.findPostPageByUserId(user.getId(), request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("status", "error", "message", e.getMessage()));
+        }
+    }
 
-        Integer userId = userService.findUserByJwt(jwt)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"))
-                .getId();
+    // Prefix-matching, ranked search over captions and file names
+    @GetMapping("/search")
+    public ResponseEntity<?> searchPosts(
+            @CurrentUser User user,
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (query.isBlank() || limit < 1 || limit > 100) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("status", "error", "message", "q must not be blank and limit must be between 1 and 100"));
+        }
+        return ResponseEntity.ok(postService.searchPosts(user.getId(), query, limit));
+    }
 
-        Post post = postService.findPostById(postId);
+    @DeleteMapping("/{postId}")
+    public ResponseEntity<Void> deletePost(
+            @CurrentUser User user,
+            @PathVariable Long postId) throws ResourceNotFoundException, UnauthorizedAccessException {
 
-        if (!post.getUser().getId().equals(userId)) {
-            throw new UnauthorizedAccessException("You don't have permission to delete this post");
-        }
+        postService.findOwnedPost(postId, user.getId());
 
         postService.deletePost(postId);
         return ResponseEntity.noContent().build();
     }
 
     @PatchMapping("/{postId}/otp-protection")
-    public ResponseEntity<Post> updateOtpProtection(
-            @RequestHeader("Authorization") String jwt,
-            @PathVariable Integer postId,
+    public ResponseEntity<PostSummary> updateOtpProtection(
+            @CurrentUser User user,
+            @PathVariable Long postId,
             @RequestParam boolean enabled) throws ResourceNotFoundException, UnauthorizedAccessException {
 
-        Integer userId = userService.findUserByJwt(jwt)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"))
-                .getId();
-
-        Post post = postService.findPostById(postId);
-        
-        if (!post.getUser().getId().equals(userId)) {
-            throw new UnauthorizedAccessException("You don't have permission to modify this post");
-        }
+        Post post = postService.findOwnedPost(postId, user.getId());
 
         post.setOtpProtected(enabled);
         Post updatedPost = postService.updatePost(post);
 
-        return ResponseEntity.ok(updatedPost);
+        return ResponseEntity.ok(PostSummary.from(updatedPost));
     }
 
     @GetMapping("/{postId}/otp-status")
     public ResponseEntity<Map<String, Boolean>> checkOtpStatus(
-            @RequestHeader("Authorization") String jwt,
-            @PathVariable Integer postId) throws ResourceNotFoundException, UnauthorizedAccessException {
-
-        Integer userId = userService.findUserByJwt(jwt)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"))
-                .getId();
+            @CurrentUser User user,
+            @PathVariable Long postId) throws ResourceNotFoundException, UnauthorizedAccessException {
 
-        Post post = postService.findPostById(postId);
-
-        if (!post.getUser().getId().equals(userId)) {
-            throw new UnauthorizedAccessException("You don't have permission to view this post");
-        }
+        Post post = postService.findOwnedPost(postId, user.getId());
 
         return ResponseEntity.ok(Collections.singletonMap("otpProtected", post.isOtpProtected()));
     }
@@ -9,18 +9,18 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.securemydocs.config.CurrentUser;
 import com.securemydocs.exceptions.OTPException;
 import com.securemydocs.exceptions.ResourceNotFoundException;
+import com.securemydocs.exceptions.UnauthorizedAccessException;
 import com.securemydocs.model.Post;
 import com.securemydocs.model.User;
 import com.securemydocs.service.PostService;
 import com.securemydocs.service.OTPService;
-import com.securemydocs.service.UserService;
 
 @RestController
 @RequestMapping("/api/secure/posts")
@@ -31,27 +31,16 @@ public class SecurePostController {
     
     @Autowired
     private OTPService otpService;
-    
-    @Autowired
-    private UserService userService;
 
     @PostMapping("/{postId}/toggle-otp")
     public ResponseEntity<?> toggleOtpProtection(
-            @RequestHeader("Authorization") String jwt,
-            @PathVariable Integer postId,
+            @CurrentUser User user,
+            @PathVariable Long postId,
             @RequestParam boolean enable,
             @RequestBody Map<String, String> request) {
         
         try {
-            User user = userService.findUserByJwt(jwt)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-            
-            Post post = postService.findPostById(postId);
-            
-            if (!post.getUser().getId().equals(user.getId())) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body(Map.of("message", "You don't have permission to modify this post"));
-            }
+            Post post = postService.findOwnedPost(postId, user.getId());
             
             String otpCode = request.get("otpCode");
             if (otpCode == null || otpCode.trim().isEmpty()) {
@@ -73,6 +62,9 @@ public class SecurePostController {
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("message", e.getMessage()));
+        } catch (UnauthorizedAccessException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("message", "You don't have permission to modify this post"));
         } catch (OTPException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("message", e.getMessage()));
@@ -84,19 +76,11 @@ public class SecurePostController {
 
     @PostMapping("/{postId}/generate-otp-toggle")
     public ResponseEntity<?> generateOtpForToggle(
-            @RequestHeader("Authorization") String jwt,
-            @PathVariable Integer postId) {
+            @CurrentUser User user,
+            @PathVariable Long postId) {
         
         try {
-            User user = userService.findUserByJwt(jwt)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-            
-            Post post = postService.findPostById(postId);
-            
-            if (!post.getUser().getId().equals(user.getId())) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body(Map.of("message", "You don't have permission to access this post"));
-            }
+            Post post = postService.findOwnedPost(postId, user.getId());
             
             // Generate OTP specifically for toggling protection
             otpService.generateOTP(post, user);
@@ -109,6 +93,9 @@ public class SecurePostController {
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("message", e.getMessage()));
+        } catch (UnauthorizedAccessException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("message", "You don't have permission to access this post"));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("message", "Failed to generate OTP: " + e.getMessage()));
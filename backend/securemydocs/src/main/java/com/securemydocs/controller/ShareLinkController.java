@@ -1,5 +1,6 @@
 package com.securemydocs.controller;
 
+import com.securemydocs.config.CurrentUser;
 import com.securemydocs.exceptions.ResourceNotFoundException;
 import com.securemydocs.exceptions.UnauthorizedAccessException;
 import com.securemydocs.model.Post;
@@ -7,7 +8,6 @@ import com.securemydocs.model.ShareableLink;
 import com.securemydocs.model.User;
 import com.securemydocs.service.PostService;
 import com.securemydocs.service.ShareableLinkService;
-import com.securemydocs.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
@@ -24,27 +24,18 @@ public class ShareLinkController {
     @Autowired
     private ShareableLinkService shareableLinkService;
     @Autowired
-    private UserService userService;
-    @Autowired
     private PostService postService;
 
     @PostMapping("/create/{postId}")
     public ResponseEntity<?> createShareLink(
-            @RequestHeader("Authorization") String jwt,
-            @PathVariable Integer postId,
+            @CurrentUser User user,
+            @PathVariable Long postId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime expiresAt,
             @RequestParam(required = false) Integer maxUses) {
 
         try {
-            User user = userService.findUserByJwt(jwt)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-            Post post = postService.findPostById(postId);
-
             // Authorization check: only the owner can share the file
-            if (!post.getUser().getId().equals(user.getId())) {
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body(Map.of("status", "error", "message", "You can only share your own files."));
-            }
+            Post post = postService.findOwnedPost(postId, user.getId());
 
             ShareableLink newLink = shareableLinkService.createShareableLink(post, expiresAt, maxUses);
             String shareUrl = shareableLinkService.generateShareUrl(newLink.getToken());
@@ -60,6 +51,9 @@ public class ShareLinkController {
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(Map.of("status", "error", "message", e.getMessage()));
+        } catch (UnauthorizedAccessException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("status", "error", "message", "You can only share your own files."));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("status", "error", "message", "Failed to create share link: " + e.getMessage()));
@@ -3,15 +3,26 @@ package com.securemydocs.controller;
 import com.securemydocs.exceptions.ResourceNotFoundException;
 import com.securemydocs.model.Post;
 import com.securemydocs.model.ShareableLink;
+import com.securemydocs.service.BlobDownloadService;
+import com.securemydocs.service.ChangeVersionService;
 import com.securemydocs.service.OTPService;
 import com.securemydocs.service.ShareableLinkService;
+import com.securemydocs.service.SharedContentGrants;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
 import java.util.Map;
 
 @RestController
@@ -26,12 +37,24 @@ public class SharedAccessController {
     @Autowired
     private OTPService otpService;
 
+    @Autowired
+    private BlobDownloadService blobDownloadService;
+
+    @Autowired
+    private SharedContentGrants sharedContentGrants;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
     @GetMapping("/{token}")
     public ResponseEntity<?> getSharedFileInfo(
             @PathVariable String token,
-            @RequestParam(required = false) String otp) {
+            @RequestParam(required = false) String otp,
+            WebRequest webRequest) {
 
         try {
+            // Read before the link and its post, so the post sent is never older than the tag
+            String etag = changeVersionService.etagForLink(token);
             ShareableLink link = shareableLinkService.getValidLinkByToken(token);
             
             // Check if link is valid before proceeding
@@ -65,12 +88,21 @@ public class SharedAccessController {
                 }
             }
 
-            // Increment use count
-            link.incrementUseCount();
-            shareableLinkService.save(link);
+            // Revalidating a copy the client already holds is not another use of the link
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+
+            if (!shareableLinkService.recordUse(link)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("status", "error", "message", "This share link is invalid or has expired."));
+            }
 
             // Return file info (sanitize sensitive data)
-            return ResponseEntity.ok(Map.of(
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .eTag(etag)
+                    .body(Map.of(
                     "status", "success",
                     "post", Map.of(
                             "id", post.getId(),
@@ -139,11 +171,23 @@ public class SharedAccessController {
                 logger.info("Post is not OTP protected, proceeding without OTP");
             }
 
-            link.incrementUseCount();
-            shareableLinkService.save(link);
+            if (!shareableLinkService.recordUse(link)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("status", "error", "message", "This share link is invalid or has expired."));
+            }
 
-            // Get the file URL for viewing
-            String fileUrl = getFileUrl(post);
+            // Get the file URL for viewing. Files kept in the blob store are served by /content,
+            // which supports range requests so players can seek without refetching
+            String fileUrl;
+            if (BlobDownloadService.hasStoredContent(post)) {
+                fileUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/api/public/shared/{token}/content")
+                        .queryParam("grant", sharedContentGrants.issue(link))
+                        .buildAndExpand(token)
+                        .toUriString();
+            } else {
+                fileUrl = getFileUrl(post);
+            }
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
@@ -162,6 +206,22 @@ public class SharedAccessController {
         }
     }
 
+    @GetMapping("/{token}/content")
+    public void getSharedFileContent(
+            @PathVariable String token,
+            @RequestParam(required = false) String grant,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException, ResourceNotFoundException {
+
+        // A grant from /view is required; it already covered the OTP check and use count
+        ShareableLink link = shareableLinkService.getLinkByToken(token);
+        if (!SharedContentGrants.isLinkOpen(link) || !sharedContentGrants.isValid(grant, token)) {
+            throw new ResourceNotFoundException("This share link is invalid or has expired.");
+        }
+
+        blobDownloadService.writePost(link.getPost(), request, response);
+    }
+
     @PostMapping("/{token}/request-otp")
     public ResponseEntity<?> requestOtpForSharedFile(@PathVariable String token) {
         try {
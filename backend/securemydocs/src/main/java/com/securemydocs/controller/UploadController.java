@@ -0,0 +1,101 @@
+package com.securemydocs.controller;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.securemydocs.config.CurrentUser;
+import com.securemydocs.exceptions.ResourceNotFoundException;
+import com.securemydocs.exceptions.UploadQuotaExceededException;
+import com.securemydocs.exceptions.UserException;
+import com.securemydocs.model.Post;
+import com.securemydocs.model.User;
+import com.securemydocs.request.CreateUploadRequest;
+import com.securemydocs.response.PostSummary;
+import com.securemydocs.service.ChunkedUploadService;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// Resumable upload protocol:
+//   POST   /api/uploads                    start a session, returns uploadId and chunkSize
+//   PUT    /api/uploads/{id}/chunks/{off}  raw chunk bytes at a chunkSize-aligned offset, in any order
+//   GET    /api/uploads/{id}               received bytes and the offsets still missing
+//   POST   /api/uploads/{id}/complete      create the post once every chunk has arrived
+//   DELETE /api/uploads/{id}               abandon the upload
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadController {
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    public ResponseEntity<?> createUpload(
+            @CurrentUser User user,
+            @RequestBody CreateUploadRequest request) throws IOException {
+        try {
+            return new ResponseEntity<>(chunkedUploadService.create(user.getId(), request), HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (UploadQuotaExceededException e) {
+            return error(HttpStatus.TOO_MANY_REQUESTS, e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<?> getUploadStatus(
+            @CurrentUser User user,
+            @PathVariable String uploadId) throws ResourceNotFoundException {
+        return ResponseEntity.ok(chunkedUploadService.status(user.getId(), uploadId));
+    }
+
+    @PutMapping("/{uploadId}/chunks/{offset}")
+    public ResponseEntity<?> putChunk(
+            @CurrentUser User user,
+            @PathVariable String uploadId,
+            @PathVariable long offset,
+            HttpServletRequest request) throws ResourceNotFoundException, IOException {
+        try {
+            return ResponseEntity.ok(chunkedUploadService.writeChunk(
+                    user.getId(), uploadId, offset, request.getContentLengthLong(), request.getInputStream()));
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<?> completeUpload(
+            @CurrentUser User user,
+            @PathVariable String uploadId) throws ResourceNotFoundException, IOException, UserException {
+        try {
+            Post post = chunkedUploadService.complete(user.getId(), uploadId);
+            return new ResponseEntity<>(PostSummary.from(post), HttpStatus.CREATED);
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<?> abortUpload(
+            @CurrentUser User user,
+            @PathVariable String uploadId) throws ResourceNotFoundException {
+        try {
+            chunkedUploadService.abort(user.getId(), uploadId);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalStateException e) {
+            return error(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    private static ResponseEntity<?> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(Map.of("status", "error", "message", message));
+    }
+}
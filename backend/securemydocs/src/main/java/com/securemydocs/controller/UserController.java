@@ -1,16 +1,17 @@
 package com.securemydocs.controller;
 
-import java.util.Map;
-import java.util.Optional;
-
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import com.securemydocs.config.CurrentUser;
 import com.securemydocs.model.User;
+import com.securemydocs.response.UserProfile;
+import com.securemydocs.service.ChangeVersionService;
 import com.securemydocs.service.UserService;
 
 @RestController
@@ -19,18 +20,28 @@ public class UserController {
     @Autowired
     UserService userService;
 
+    @Autowired
+    ChangeVersionService changeVersionService;
+
     @GetMapping("/api/users/profile")
-    public User getUserFromToken(@RequestHeader("Authorization") String jwt) {
-        return userService.findUserByJwt(jwt)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public ResponseEntity<UserProfile> getUserFromToken(@CurrentUser User user, WebRequest webRequest) throws Exception {
+        String etag = changeVersionService.etag(user.getId(), ChangeVersionService.Scope.PROFILE);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        // The resolved user may come from UserCache, older than the version just read;
+        // the body is read after the version so it is never older than its tag
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(etag)
+                .body(userService.findUserProfile(user.getId()));
     }
 
     @PutMapping("/api/users")
-    public User updateUser(@RequestHeader("Authorization") String jwt, @RequestBody User user) throws Exception {
+    public UserProfile updateUser(@CurrentUser User reqUser, @RequestBody User user) throws Exception {
 
-        Optional<User> reqUser = userService.findUserByJwt(jwt);
-        User updatedUser = userService.updateUser(user, reqUser.get().getId());
-        return updatedUser;
+        User updatedUser = userService.updateUser(user, reqUser.getId());
+        return UserProfile.from(updatedUser);
     }
 
     
@@ -1,5 +1,9 @@
 package com.securemydocs.exceptions;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
 public class ResourceNotFoundException extends Exception {
     public ResourceNotFoundException() {
         super();
@@ -1,5 +1,9 @@
 package com.securemydocs.exceptions;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.FORBIDDEN)
 public class UnauthorizedAccessException extends Exception {
     public UnauthorizedAccessException(String message) {
         super(message);
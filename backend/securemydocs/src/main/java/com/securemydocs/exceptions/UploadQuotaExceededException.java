@@ -0,0 +1,11 @@
+package com.securemydocs.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class UploadQuotaExceededException extends Exception {
+    public UploadQuotaExceededException(String message) {
+        super(message);
+    }
+}
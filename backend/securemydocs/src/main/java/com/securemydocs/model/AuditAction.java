@@ -0,0 +1,49 @@
+package com.securemydocs.model;
+
+import java.util.Optional;
+
+// What an audit entry records, stored as a small code (see AuditActionConverter). Codes
+// are persisted and archived: never renumber one, only append.
+public enum AuditAction {
+    // Entries migrated from the free-text column whose action matched none of the below
+    OTHER(0),
+    UPLOAD(1),
+    DELETE(2),
+    ENABLE_OTP(3),
+    DISABLE_OTP(4),
+    IMPORT(5);
+
+    private static final AuditAction[] BY_CODE = new AuditAction[6];
+
+    static {
+        for (AuditAction action : values()) {
+            BY_CODE[action.code] = action;
+        }
+    }
+
+    private final short code;
+
+    AuditAction(int code) {
+        this.code = (short) code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public static AuditAction fromCode(short code) {
+        if (code < 0 || code >= BY_CODE.length || BY_CODE[code] == null) {
+            throw new IllegalArgumentException("Unknown audit action code " + code);
+        }
+        return BY_CODE[code];
+    }
+
+    public static Optional<AuditAction> find(String name) {
+        for (AuditAction action : values()) {
+            if (action.name().equals(name)) {
+                return Optional.of(action);
+            }
+        }
+        return Optional.empty();
+    }
+}
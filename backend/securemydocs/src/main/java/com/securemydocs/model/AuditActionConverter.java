@@ -0,0 +1,18 @@
+package com.securemydocs.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+@Converter(autoApply = true)
+public class AuditActionConverter implements AttributeConverter<AuditAction, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(AuditAction action) {
+        return action == null ? null : action.getCode();
+    }
+
+    @Override
+    public AuditAction convertToEntityAttribute(Short code) {
+        return code == null ? null : AuditAction.fromCode(code);
+    }
+}
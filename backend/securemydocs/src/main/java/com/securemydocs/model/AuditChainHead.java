@@ -0,0 +1,73 @@
+package com.securemydocs.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// The last record a segment audit chain had reached when SegmentAuditLogStore last
+// anchored it: its sequence and hash. Kept apart from the segment files, so a chain that
+// was rewritten or cut short there no longer contains this record and fails verification.
+@Entity
+@Table(name = "audit_chain_heads")
+public class AuditChainHead {
+
+    // app.audit.segments.chain-id, one per segment directory
+    @Id
+    @Column(name = "chain_id", length = 64)
+    private String chainId;
+
+    @Column(nullable = false)
+    private long sequence;
+
+    // SHA-256 of the record, hex
+    @Column(nullable = false, length = 64)
+    private String hash;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public AuditChainHead() {
+    }
+
+    public AuditChainHead(String chainId, long sequence, String hash, LocalDateTime updatedAt) {
+        this.chainId = chainId;
+        this.sequence = sequence;
+        this.hash = hash;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getChainId() {
+        return chainId;
+    }
+
+    public void setChainId(String chainId) {
+        this.chainId = chainId;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public void setHash(String hash) {
+        this.hash = hash;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -4,44 +4,71 @@ package com.securemydocs.model;
 import java.time.LocalDateTime;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.ConstraintMode;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "audit_logs")
+@Table(name = "audit_logs", indexes = {
+        // Serves the keyset-paginated, time-range listing per user in either direction
+        @Index(name = "idx_audit_user_time", columnList = "user_id, timestamp, id")
+})
 public class AuditLog {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Integer id;
-
-    private String action;
-    
-    @Column(name = "file_name")
-    private String fileName;
-    
+    @TimeOrderedId
+    private Long id;
+
+    @Column(name = "action_code", nullable = false)
+    private AuditAction action;
+
+    // The action as recorded by entries migrated as OTHER, which the API shows instead
+    @Column(name = "action_name")
+    private String actionName;
+
+    // The post the entry is about, if any; its file name lives in audit_post_names
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "post_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private AuditPostName post;
+
+    // Free text for entries not about one post, e.g. "12 posts" for an import
+    private String detail;
+
+    // Partition key of the table on MySQL, see AuditArchiver
+    @Column(nullable = false)
     private LocalDateTime timestamp;
 
-    @ManyToOne
-    @JoinColumn(name = "user_id")
+    // Partitioned tables cannot have foreign keys
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private User user;
 
     // Constructors, getters, and setters
     public AuditLog() {}
 
     // Getters and setters
-    public Integer getId() { return id; }
-    public void setId(Integer id) { this.id = id; }
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public AuditAction getAction() { return action; }
+    public void setAction(AuditAction action) { this.action = action; }
+
+    public String getActionName() { return actionName; }
+    public void setActionName(String actionName) { this.actionName = actionName; }
+
+    public AuditPostName getPost() { return post; }
+    public void setPost(AuditPostName post) { this.post = post; }
 
-    public String getAction() { return action; }
-    public void setAction(String action) { this.action = action; }
+    public String getDetail() { return detail; }
+    public void setDetail(String detail) { this.detail = detail; }
 
-    public String getFileName() { return fileName; }
-    public void setFileName(String fileName) { this.fileName = fileName; }
+    // What the API shows as fileName
+    public String getFileName() { return post != null ? post.getFileName() : detail; }
 
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
@@ -0,0 +1,40 @@
+package com.securemydocs.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// File name of a post as the audit log shows it, written once per post by AuditLogWriter.
+// Audit entries refer to it by post id instead of repeating the name on every row, and it
+// outlives the post itself, which PostPurgeWorker removes.
+@Entity
+@Table(name = "audit_post_names")
+public class AuditPostName {
+
+    @Id
+    @Column(name = "post_id")
+    private Long postId;
+
+    @Column(name = "file_name", nullable = false)
+    private String fileName;
+
+    public AuditPostName() {
+    }
+
+    public Long getPostId() {
+        return postId;
+    }
+
+    public void setPostId(Long postId) {
+        this.postId = postId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+}
@@ -0,0 +1,61 @@
+package com.securemydocs.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Reference count for a content-addressed blob (key = SHA-256 of the bytes).
+// Rows at zero are kept until BlobGarbageCollector removes them with the file.
+@Entity
+@Table(name = "blob_refs", indexes = {
+        @Index(name = "idx_blob_refs_unreferenced", columnList = "ref_count, updated_at")
+})
+public class BlobRef {
+
+    @Id
+    @Column(name = "content_key", length = 64)
+    private String contentKey;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public BlobRef() {
+    }
+
+    public String getContentKey() {
+        return contentKey;
+    }
+
+    public void setContentKey(String contentKey) {
+        this.contentKey = contentKey;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(int refCount) {
+        this.refCount = refCount;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
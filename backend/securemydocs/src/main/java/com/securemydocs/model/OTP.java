@@ -8,7 +8,7 @@ import java.time.LocalDateTime;
 public class OTP {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     private String code;
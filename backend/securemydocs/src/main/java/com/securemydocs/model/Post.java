@@ -3,13 +3,27 @@ package com.securemydocs.model;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
 @Entity
-@Table(name = "post") // Explicitly specify table name
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+// Updates write only the changed columns, so the delete tombstone and a background
+// thumbnail update of the same post cannot overwrite each other
+@DynamicUpdate
+@Table(name = "post", indexes = {
+        // Serves the keyset-paginated listing per user, newest or oldest first
+        @Index(name = "idx_post_user_created", columnList = "user_id, created_at, id"),
+        // Lets PostPurgeWorker find tombstones without scanning live rows
+        @Index(name = "idx_post_deleted", columnList = "deleted_at")
+})
 public class Post {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Integer id;
+    @TimeOrderedId
+    private Long id;
 
     private String captions;
     private String image;
@@ -18,6 +32,9 @@ public class Post {
     private String imageName;
     private String videoName;
     private String documentName;
+
+    // blob:<key> of a small JPEG preview, filled in by ThumbnailService after creation
+    private String thumbnail;
     
     @Column(name = "otp_protected", nullable = false)
     private boolean otpProtected = false;
@@ -29,6 +46,11 @@ public class Post {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    // Tombstone set by deletePost; every read path treats the post as gone, and
+    // PostPurgeWorker removes its OTPs, share links, blob references and the row later
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     // Constructors
     public Post() {
         this.createdAt = LocalDateTime.now();
@@ -36,11 +58,11 @@ public class Post {
     }
 
     // Getters and setters
-    public Integer getId() {
+    public Long getId() {
         return id;
     }
 
-    public void setId(Integer id) {
+    public void setId(Long id) {
         this.id = id;
     }
 
@@ -100,6 +122,14 @@ public class Post {
         this.documentName = documentName;
     }
 
+    public String getThumbnail() {
+        return thumbnail;
+    }
+
+    public void setThumbnail(String thumbnail) {
+        this.thumbnail = thumbnail;
+    }
+
     public boolean isOtpProtected() {
         return otpProtected;
     }
@@ -123,4 +153,16 @@ public class Post {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    public boolean isDeleted() {
+        return deletedAt != null;
+    }
 }
\ No newline at end of file
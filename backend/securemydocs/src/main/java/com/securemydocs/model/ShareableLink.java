@@ -4,12 +4,18 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+import org.hibernate.annotations.DynamicUpdate;
+
+// Not in the second-level cache, which is local to each node: a deactivated link must stop
+// working everywhere at once. Uses are counted in the database (recordUse), and updates
+// write only the changed columns so they never put back an older use_count.
 @Entity
+@DynamicUpdate
 @Table(name = "shareable_links")
 public class ShareableLink {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @Column(nullable = false, unique = true)
@@ -73,9 +79,4 @@ public class ShareableLink {
                LocalDateTime.now().isBefore(expiresAt) &&
                (maxUses == null || useCount < maxUses);
     }
-
-    // Helper method to increment use count
-    public void incrementUseCount() {
-        this.useCount++;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.securemydocs.model;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+// Marks an id that is assigned in the application by TimeOrderedIdGenerator rather than by
+// an IDENTITY column, so Hibernate can batch the inserts that carry it
+@IdGeneratorType(TimeOrderedIdGenerator.class)
+@Retention(RUNTIME)
+@Target({ FIELD, METHOD })
+public @interface TimeOrderedId {
+}
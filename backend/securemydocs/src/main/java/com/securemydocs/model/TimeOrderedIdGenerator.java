@@ -0,0 +1,64 @@
+package com.securemydocs.model;
+
+import java.time.Instant;
+import java.util.EnumSet;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.springframework.beans.factory.annotation.Value;
+
+// Roughly time-ordered 53-bit ids: 41 bits of milliseconds since 2025-01-01, 4 bits of node
+// (app.id.node, 0-15) and an 8-bit per-millisecond sequence. 53 bits keeps every id exact
+// as a JavaScript number, so the frontend can keep treating ids as plain numbers.
+//
+// Ids come from a logical clock that never goes backwards: if the wall clock steps back, or
+// a millisecond's sequence runs out, the generator borrows the next millisecond instead of
+// waiting. New rows therefore land at the right-hand edge of the primary key index.
+public class TimeOrderedIdGenerator implements BeforeExecutionGenerator {
+
+    static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 4;
+    static final int SEQUENCE_BITS = 8;
+
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private final long node;
+    private long lastMillis = -1;
+    private long sequence;
+
+    // Hibernate asks Spring's bean container for generator instances, so the node comes
+    // straight from the application properties
+    public TimeOrderedIdGenerator(@Value("${app.id.node:0}") long node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("app.id.node must be between 0 and " + MAX_NODE + ", was " + node);
+        }
+        this.node = node;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return next();
+    }
+
+    synchronized long next() {
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        if (now > lastMillis) {
+            lastMillis = now;
+            sequence = 0;
+        } else if (sequence < MAX_SEQUENCE) {
+            sequence++;
+        } else {
+            lastMillis++;
+            sequence = 0;
+        }
+        return (lastMillis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -4,18 +4,18 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity; // using Entity to create table
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 
+// Not in the second-level cache: that cache is local to each node, and a password or
+// email changed on one node must take effect on all of them at once
 @Entity
 //@Table(name = "santuTable")   // to change table name
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
-    private Integer id;
+    @TimeOrderedId
+    private Long id;
     private String firstName;
     private String lastName;
     private String email;
@@ -25,7 +25,7 @@ public class User {
 
     }
 
-    public User(Integer id, String firstName, String lastName, String email, String password
+    public User(Long id, String firstName, String lastName, String email, String password
     ) {
         super();
         this.id = id;
@@ -36,11 +36,11 @@ public class User {
 
     }
 
-    public Integer getId() {
+    public Long getId() {
         return id;
     }
 
-    public void setId(Integer id) {
+    public void setId(Long id) {
         this.id = id;
     }
 
@@ -0,0 +1,58 @@
+package com.securemydocs.model;
+
+import jakarta.persistence.*;
+
+// Per-user change counters, one per cacheable view. They only ever grow; ETags on the
+// JSON read endpoints are derived from them (see ChangeVersionService).
+@Entity
+@Table(name = "user_versions")
+public class UserVersion {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "posts_version", nullable = false)
+    private long postsVersion;
+
+    @Column(name = "audit_version", nullable = false)
+    private long auditVersion;
+
+    @Column(name = "profile_version", nullable = false)
+    private long profileVersion;
+
+    public UserVersion() {
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public long getPostsVersion() {
+        return postsVersion;
+    }
+
+    public void setPostsVersion(long postsVersion) {
+        this.postsVersion = postsVersion;
+    }
+
+    public long getAuditVersion() {
+        return auditVersion;
+    }
+
+    public void setAuditVersion(long auditVersion) {
+        this.auditVersion = auditVersion;
+    }
+
+    public long getProfileVersion() {
+        return profileVersion;
+    }
+
+    public void setProfileVersion(long profileVersion) {
+        this.profileVersion = profileVersion;
+    }
+}
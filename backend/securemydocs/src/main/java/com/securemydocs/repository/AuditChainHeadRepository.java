@@ -0,0 +1,10 @@
+package com.securemydocs.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.securemydocs.model.AuditChainHead;
+
+@Repository
+public interface AuditChainHeadRepository extends JpaRepository<AuditChainHead, String> {
+}
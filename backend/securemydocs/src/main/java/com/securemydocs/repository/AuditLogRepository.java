@@ -1,16 +1,18 @@
 package com.securemydocs.repository;
 
 import com.securemydocs.model.AuditLog;
+import com.securemydocs.response.AuditLogEntry;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
-    // Use email instead of username if that's what your User entity has
-    List<AuditLog> findByUserEmailOrderByTimestampDesc(String email);
-    
-    // OR if you want to use the user ID
-    List<AuditLog> findByUserIdOrderByTimestampDesc(Long userId);
+public interface AuditLogRepository extends JpaRepository<AuditLog, Long>, AuditLogRepositoryCustom {
+    // By the user_id column, so the (user_id, timestamp, id) index serves it without joining users
+    @Query("SELECT new com.securemydocs.response.AuditLogEntry(a.id, a.action, a.actionName, COALESCE(n.fileName, a.detail), a.timestamp) "
+            + "FROM AuditLog a LEFT JOIN a.post n WHERE a.user.id = :userId ORDER BY a.timestamp DESC, a.id DESC")
+    List<AuditLogEntry> findEntriesByUserIdNewestFirst(@Param("userId") Long userId);
 }
\ No newline at end of file
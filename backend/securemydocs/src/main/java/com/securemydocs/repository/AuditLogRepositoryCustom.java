@@ -0,0 +1,14 @@
+package com.securemydocs.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.securemydocs.model.AuditLog;
+import com.securemydocs.response.AuditLogEntry;
+
+public interface AuditLogRepositoryCustom {
+
+    List<AuditLogEntry> findEntries(Specification<AuditLog> spec, Sort sort, int limit);
+}
@@ -0,0 +1,58 @@
+package com.securemydocs.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.securemydocs.model.AuditLog;
+import com.securemydocs.response.AuditLogEntry;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+public class AuditLogRepositoryImpl implements AuditLogRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Selects AuditLogEntry columns only, so neither the entity nor its user is loaded; the
+    // file name comes from the post's dictionary row, or the entry's own detail text
+    @Override
+    public List<AuditLogEntry> findEntries(Specification<AuditLog> spec, Sort sort, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AuditLogEntry> query = cb.createQuery(AuditLogEntry.class);
+        Root<AuditLog> root = query.from(AuditLog.class);
+
+        query.select(cb.construct(AuditLogEntry.class,
+                root.get("id"),
+                root.get("action"),
+                root.get("actionName"),
+                cb.coalesce(root.join("post", JoinType.LEFT).<String>get("fileName"), root.<String>get("detail")),
+                root.get("timestamp")));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            orders.add(order.isAscending()
+                    ? cb.asc(root.get(order.getProperty()))
+                    : cb.desc(root.get(order.getProperty())));
+        }
+        query.orderBy(orders);
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
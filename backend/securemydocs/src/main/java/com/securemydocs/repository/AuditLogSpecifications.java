@@ -0,0 +1,53 @@
+package com.securemydocs.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.securemydocs.model.AuditAction;
+import com.securemydocs.model.AuditLog;
+
+// Building blocks for the paginated audit listing. The user and time predicates are a
+// range on the (user_id, timestamp, id) index; the action is checked on the rows it yields.
+public final class AuditLogSpecifications {
+
+    private AuditLogSpecifications() {
+    }
+
+    public static Specification<AuditLog> ownedBy(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<AuditLog> from(LocalDateTime from) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("timestamp"), from);
+    }
+
+    public static Specification<AuditLog> before(LocalDateTime to) {
+        return (root, query, cb) -> cb.lessThan(root.get("timestamp"), to);
+    }
+
+    // Entries migrated as OTHER that kept their own name are shown, and filtered, by that name
+    public static Specification<AuditLog> hasAction(AuditAction action) {
+        return (root, query, cb) -> action == AuditAction.OTHER
+                ? cb.and(cb.equal(root.get("action"), action), cb.isNull(root.get("actionName")))
+                : cb.equal(root.get("action"), action);
+    }
+
+    public static Specification<AuditLog> hasActionName(String actionName) {
+        return (root, query, cb) -> cb.equal(root.get("actionName"), actionName);
+    }
+
+    // Keyset condition: rows strictly after (timestamp, id) in the requested direction
+    public static Specification<AuditLog> after(LocalDateTime timestamp, Long id, boolean ascending) {
+        return (root, query, cb) -> {
+            if (ascending) {
+                return cb.or(
+                        cb.greaterThan(root.get("timestamp"), timestamp),
+                        cb.and(cb.equal(root.get("timestamp"), timestamp), cb.greaterThan(root.get("id"), id)));
+            }
+            return cb.or(
+                    cb.lessThan(root.get("timestamp"), timestamp),
+                    cb.and(cb.equal(root.get("timestamp"), timestamp), cb.lessThan(root.get("id"), id)));
+        };
+    }
+}
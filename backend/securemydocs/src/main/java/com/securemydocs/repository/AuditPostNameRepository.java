@@ -0,0 +1,23 @@
+package com.securemydocs.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.securemydocs.model.AuditPostName;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface AuditPostNameRepository extends JpaRepository<AuditPostName, Long> {
+
+    // Keeps the first name recorded for a post; names do not change after upload
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "audit_post_names"))
+    @Query(value = "INSERT INTO audit_post_names (post_id, file_name) VALUES (:postId, :fileName) "
+            + "ON DUPLICATE KEY UPDATE post_id = post_id", nativeQuery = true)
+    void remember(@Param("postId") Long postId, @Param("fileName") String fileName);
+}
@@ -0,0 +1,53 @@
+package com.securemydocs.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.securemydocs.model.BlobRef;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface BlobRefRepository extends JpaRepository<BlobRef, String> {
+
+    // Single atomic statement, so two first uploads of the same content cannot race on the insert.
+    // Native updates must name their table, or Hibernate evicts the whole second-level cache.
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "blob_refs"))
+    @Query(value = "INSERT INTO blob_refs (content_key, size, ref_count, updated_at) VALUES (:key, :size, 1, :now) "
+            + "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1, updated_at = :now", nativeQuery = true)
+    void acquire(@Param("key") String key, @Param("size") long size, @Param("now") LocalDateTime now);
+
+    // Same, taking several references at once (bulk import)
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "blob_refs"))
+    @Query(value = "INSERT INTO blob_refs (content_key, size, ref_count, updated_at) VALUES (:key, :size, :count, :now) "
+            + "ON DUPLICATE KEY UPDATE ref_count = ref_count + :count, updated_at = :now", nativeQuery = true)
+    void acquire(@Param("key") String key, @Param("size") long size, @Param("count") int count, @Param("now") LocalDateTime now);
+
+    // Returns 0 for blobs stored before reference counting existed
+    @Modifying
+    @Query("UPDATE BlobRef b SET b.refCount = b.refCount - 1, b.updatedAt = :now "
+            + "WHERE b.contentKey = :key AND b.refCount > 0")
+    int release(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Query("SELECT b.contentKey FROM BlobRef b WHERE b.refCount = 0 AND b.updatedAt < :before")
+    List<String> findUnreferencedKeys(@Param("before") LocalDateTime before, Pageable pageable);
+
+    // Locked until the collector's transaction ends, so an upload re-acquiring the blob
+    // waits until the file is either gone or known to stay
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BlobRef b WHERE b.contentKey = :key AND b.refCount = 0 AND b.updatedAt < :before")
+    Optional<BlobRef> lockUnreferenced(@Param("key") String key, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,85 @@
+package com.securemydocs.repository;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.securemydocs.model.AuditAction;
+import com.securemydocs.response.AuditLogEntry;
+import com.securemydocs.response.PostSummary;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Long reads (exports, audit archival) go through their own small pool. On MySQL its
+// connections fetch through server-side cursors (useCursorFetch), so a read holds one
+// fetch batch in memory however many rows it returns. The main pool keeps plain
+// fetches, and a slow download never holds one of its connections. The pool is sized
+// for app.export.max-concurrent exports plus the archiver. ExportService makes sure no
+// more exports than that run at once.
+@Repository
+public class ExportRepository {
+
+    private static final int FETCH_SIZE = 500;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Value("${app.export.max-concurrent:4}")
+    private int maxConcurrent;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        String url = dataSourceProperties.determineUrl();
+        if (url != null && url.startsWith("jdbc:mysql:")) {
+            url += (url.contains("?") ? "&" : "?") + "useCursorFetch=true";
+        }
+        // Not a bean, so the application's DataSource is still auto-configured as before
+        dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        dataSource.setPoolName("export");
+        dataSource.setMaximumPoolSize(maxConcurrent + 1);
+        dataSource.setMinimumIdle(0);
+        dataSource.setReadOnly(true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    @PreDestroy
+    public void close() {
+        dataSource.close();
+    }
+
+    // The stream holds a connection of the export pool until it is closed
+    public <T> Stream<T> stream(String sql, RowMapper<T> mapper, Object... args) {
+        return jdbcTemplate.queryForStream(sql, mapper, args);
+    }
+
+    // The user's live posts in index order
+    public Stream<PostSummary> streamPostSummaries(Long userId) {
+        return stream("SELECT id, captions, image, video, document, image_name, video_name, document_name, thumbnail, "
+                + "otp_protected, created_at, user_id FROM post WHERE user_id = ? AND deleted_at IS NULL "
+                + "ORDER BY created_at, id", (rs, rowNum) -> new PostSummary(
+                        rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                        rs.getString(6), rs.getString(7), rs.getString(8), rs.getString(9), rs.getBoolean(10),
+                        rs.getObject(11, LocalDateTime.class), rs.getLong(12)), userId);
+    }
+
+    // The user's entries still in audit_logs, oldest first
+    public Stream<AuditLogEntry> streamAuditEntries(Long userId) {
+        return stream("SELECT a.id, a.action_code, a.action_name, COALESCE(n.file_name, a.detail), a.timestamp "
+                + "FROM audit_logs a LEFT JOIN audit_post_names n ON n.post_id = a.post_id WHERE a.user_id = ? "
+                + "ORDER BY a.timestamp, a.id",
+                (rs, rowNum) -> new AuditLogEntry(rs.getLong(1), AuditAction.fromCode(rs.getShort(2)), rs.getString(3),
+                        rs.getString(4), rs.getObject(5, LocalDateTime.class)), userId);
+    }
+}
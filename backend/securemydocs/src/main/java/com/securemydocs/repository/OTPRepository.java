@@ -3,14 +3,16 @@ package com.securemydocs.repository;
 import com.securemydocs.model.OTP;
 import com.securemydocs.model.Post;
 import com.securemydocs.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -22,8 +24,11 @@ public interface OTPRepository extends JpaRepository<OTP, Long> {
     Optional<OTP> findByCodeAndPostAndUserAndUsedFalseAndExpiresAtAfter(
             String code, Post post, User user, LocalDateTime now);
 
+    // Purge of a deleted post, a page at a time
+    @Query("SELECT o.id FROM OTP o WHERE o.post.id = :postId")
+    List<Long> findIdsByPostId(@Param("postId") Long postId, Pageable pageable);
+
     @Modifying
-    @Transactional
-    @Query("DELETE FROM OTP o WHERE o.post.id = :postId")
-    void deleteByPostId(@Param("postId") Integer postId);
+    @Query("DELETE FROM OTP o WHERE o.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,17 +1,64 @@
 package com.securemydocs.repository;
 
 import com.securemydocs.model.Post;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.securemydocs.response.PostSummary;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+
+import jakarta.persistence.LockModeType;
 
 @Repository
-public interface PostRepository extends JpaRepository<Post, Integer> {
-    @Query("SELECT p FROM Post p WHERE p.user.id = :userId")
-    List<Post> findByUserId(Integer userId);
+public interface PostRepository extends JpaRepository<Post, Long>, JpaSpecificationExecutor<Post>, PostRepositoryCustom {
+    // Every query below skips tombstoned posts (deletedAt set) unless it says otherwise
+    @Query("SELECT p FROM Post p WHERE p.user.id = :userId AND p.deletedAt IS NULL")
+    List<Post> findByUserId(Long userId);
+
+    @Query("SELECT new com.securemydocs.response.PostSummary(p.id, p.captions, p.image, p.video, p.document, "
+            + "p.imageName, p.videoName, p.documentName, p.thumbnail, p.otpProtected, p.createdAt, p.user.id) "
+            + "FROM Post p WHERE p.user.id = :userId AND p.deletedAt IS NULL")
+    List<PostSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+    // Search results in one round trip; the caller restores the ranking order
+    @Query("SELECT new com.securemydocs.response.PostSummary(p.id, p.captions, p.image, p.video, p.document, "
+            + "p.imageName, p.videoName, p.documentName, p.thumbnail, p.otpProtected, p.createdAt, p.user.id) "
+            + "FROM Post p WHERE p.user.id = :userId AND p.id IN :ids AND p.deletedAt IS NULL")
+    List<PostSummary> findSummariesByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    // Only the text columns PostSearchIndex needs to build a user's partition
+    @Query("SELECT p.id, p.captions, p.documentName, p.imageName, p.videoName FROM Post p WHERE p.user.id = :userId AND p.deletedAt IS NULL")
+    List<Object[]> findSearchFieldsByUserId(@Param("userId") Long userId);
+
+    // File fields of the user's posts that point into the blob store; imports may only reuse these
+    @Query("SELECT p.image, p.video, p.document FROM Post p WHERE p.user.id = :userId AND p.deletedAt IS NULL "
+            + "AND (p.image LIKE 'blob:%' OR p.video LIKE 'blob:%' OR p.document LIKE 'blob:%')")
+    List<Object[]> findStoredFileFieldsByUserId(@Param("userId") Long userId);
 
-    @Query("SELECT p FROM Post p WHERE p.otpProtected = true")
+    // Ownership check and load in one indexed lookup; p.user.id reads the FK column without a join
+    @Query("SELECT p FROM Post p WHERE p.id = :id AND p.user.id = :userId AND p.deletedAt IS NULL")
+    Optional<Post> findByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    boolean existsByIdAndDeletedAtIsNull(Long id);
+
+    List<Post> findByDeletedAtIsNull();
+
+    @Query("SELECT p FROM Post p WHERE p.otpProtected = true AND p.deletedAt IS NULL")
     List<Post> findAllOtpProtectedPosts();
+
+    // Purge: oldest tombstones first, then each one locked so two nodes never purge the same post
+    @Query("SELECT p.id FROM Post p WHERE p.deletedAt IS NOT NULL ORDER BY p.deletedAt")
+    List<Long> findDeletedIds(Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Post p WHERE p.id = :id AND p.deletedAt IS NOT NULL")
+    Optional<Post> lockDeleted(@Param("id") Long id);
 }
\ No newline at end of file
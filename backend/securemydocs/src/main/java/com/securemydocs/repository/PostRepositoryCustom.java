@@ -0,0 +1,14 @@
+package com.securemydocs.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.securemydocs.model.Post;
+import com.securemydocs.response.PostSummary;
+
+public interface PostRepositoryCustom {
+
+    List<PostSummary> findSummaries(Specification<Post> spec, Sort sort, int limit);
+}
@@ -0,0 +1,64 @@
+package com.securemydocs.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.securemydocs.model.Post;
+import com.securemydocs.response.PostSummary;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+public class PostRepositoryImpl implements PostRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Same filtering as JpaSpecificationExecutor, but selects PostSummary columns
+    // only, so no entities enter the persistence context and user is never joined
+    @Override
+    public List<PostSummary> findSummaries(Specification<Post> spec, Sort sort, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PostSummary> query = cb.createQuery(PostSummary.class);
+        Root<Post> root = query.from(Post.class);
+
+        query.select(cb.construct(PostSummary.class,
+                root.get("id"),
+                root.get("captions"),
+                root.get("image"),
+                root.get("video"),
+                root.get("document"),
+                root.get("imageName"),
+                root.get("videoName"),
+                root.get("documentName"),
+                root.get("thumbnail"),
+                root.get("otpProtected"),
+                root.get("createdAt"),
+                root.get("user").get("id")));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            orders.add(order.isAscending()
+                    ? cb.asc(root.get(order.getProperty()))
+                    : cb.desc(root.get(order.getProperty())));
+        }
+        query.orderBy(orders);
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,56 @@
+package com.securemydocs.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.securemydocs.model.Post;
+
+// Building blocks for the paginated post listing. Every predicate stays on
+// columns of the post table so the (user_id, created_at, id) index drives the scan.
+public final class PostSpecifications {
+
+    private PostSpecifications() {
+    }
+
+    public static Specification<Post> ownedBy(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Post> notDeleted() {
+        return (root, query, cb) -> cb.isNull(root.get("deletedAt"));
+    }
+
+    // Keyset condition: rows strictly after (createdAt, id) in the requested direction
+    public static Specification<Post> after(LocalDateTime createdAt, Long id, boolean ascending) {
+        return (root, query, cb) -> {
+            if (ascending) {
+                return cb.or(
+                        cb.greaterThan(root.get("createdAt"), createdAt),
+                        cb.and(cb.equal(root.get("createdAt"), createdAt), cb.greaterThan(root.get("id"), id)));
+            }
+            return cb.or(
+                    cb.lessThan(root.get("createdAt"), createdAt),
+                    cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id)));
+        };
+    }
+
+    public static Specification<Post> hasFileType(String fileType) {
+        return (root, query, cb) -> cb.isNotNull(root.get(fileType));
+    }
+
+    public static Specification<Post> otpProtected(boolean otpProtected) {
+        return (root, query, cb) -> cb.equal(root.get("otpProtected"), otpProtected);
+    }
+
+    public static Specification<Post> nameStartsWith(String prefix) {
+        String pattern = prefix.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.or(
+                cb.like(cb.lower(root.get("documentName")), pattern, '\\'),
+                cb.like(cb.lower(root.get("imageName")), pattern, '\\'),
+                cb.like(cb.lower(root.get("videoName")), pattern, '\\'));
+    }
+}
@@ -2,18 +2,28 @@ package com.securemydocs.repository;
 
 import com.securemydocs.model.ShareableLink;
 import com.securemydocs.model.Post;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
 
 import java.time.LocalDateTime;
 import java.util.*;
 
 @Repository
 public interface ShareableLinkRepository extends JpaRepository<ShareableLink, Long> {
-    Optional<ShareableLink> findByToken(String token);
+    // With its post in the same statement: access is decided on the post's OTP flag and
+    // tombstone, which must not come from a second-level cache entry another node outdated.
+    // The hint keeps Hibernate from resolving the fetched post from that cache either.
+    @QueryHints(@QueryHint(name = "jakarta.persistence.cache.retrieveMode", value = "BYPASS"))
+    @Query("SELECT sl FROM ShareableLink sl JOIN FETCH sl.post WHERE sl.token = :token")
+    Optional<ShareableLink> findByToken(@Param("token") String token);
     Optional<ShareableLink> findByTokenAndIsActiveTrue(String token);
 
     // Find a valid, active, non-expired link
@@ -23,8 +33,25 @@ public interface ShareableLinkRepository extends JpaRepository<ShareableLink, Lo
     // Find all links for a specific post (for management)
     List<ShareableLink> findByPost(Post post);
 
+    // Counts one use if the link is still active, unexpired and below max_uses, in a single
+    // statement so concurrent uses on any node are all counted and never exceed the limit.
+    // Returns 0 when the link may not be used any more.
+    @Modifying
+    @Transactional
+    @Query("UPDATE ShareableLink sl SET sl.useCount = sl.useCount + 1 WHERE sl.id = :id AND sl.isActive = true "
+            + "AND sl.expiresAt > :now AND (sl.maxUses IS NULL OR sl.useCount < sl.maxUses)")
+    int recordUse(@Param("id") Long id, @Param("now") LocalDateTime now);
+
     // Deactivate all links for a post (e.g., when post is deleted)
     @Modifying
     @Query("UPDATE ShareableLink sl SET sl.isActive = false WHERE sl.post.id = :postId")
-    void deactivateAllByPostId(@Param("postId") Integer postId);
+    void deactivateAllByPostId(@Param("postId") Long postId);
+
+    // Purge of a deleted post, a page at a time
+    @Query("SELECT sl.id FROM ShareableLink sl WHERE sl.post.id = :postId")
+    List<Long> findIdsByPostId(@Param("postId") Long postId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM ShareableLink sl WHERE sl.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
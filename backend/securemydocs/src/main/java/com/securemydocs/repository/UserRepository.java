@@ -1,12 +1,31 @@
 package com.securemydocs.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import com.securemydocs.model.User;
+import com.securemydocs.response.UserProfile;
+
+import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Integer> {
+public interface UserRepository extends JpaRepository<User, Long> {
 
     public User findByEmail(String email);
 
+    // Read from the row itself: a constructor result is never taken from the persistence
+    // context or a cache, so it is at least as new as a version looked up before it
+    @Query("SELECT new com.securemydocs.response.UserProfile(u.id, u.firstName, u.lastName, u.email) FROM User u WHERE u.id = :id")
+    Optional<UserProfile> findProfileById(@Param("id") Long id);
+
+    // Replaces the hash only if it is still the one that was re-encoded, so a password
+    // changed in the meantime is never overwritten. Returns the number of rows updated.
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int replacePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
 }
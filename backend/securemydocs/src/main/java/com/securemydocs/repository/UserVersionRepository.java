@@ -0,0 +1,44 @@
+package com.securemydocs.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.securemydocs.model.UserVersion;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface UserVersionRepository extends JpaRepository<UserVersion, Long> {
+
+    // One statement whatever mix of views changed; creates the row on first use. The query
+    // space keeps Hibernate from evicting the whole second-level cache, which it does for a
+    // native update that does not say which tables it touches.
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "user_versions"))
+    @Query(value = "INSERT INTO user_versions (user_id, posts_version, audit_version, profile_version) "
+            + "VALUES (:userId, :posts, :audit, :profile) ON DUPLICATE KEY UPDATE "
+            + "posts_version = posts_version + :posts, audit_version = audit_version + :audit, "
+            + "profile_version = profile_version + :profile", nativeQuery = true)
+    void bump(@Param("userId") Long userId, @Param("posts") int posts, @Param("audit") int audit,
+            @Param("profile") int profile);
+
+    @Query("SELECT v.postsVersion FROM UserVersion v WHERE v.userId = :userId")
+    Optional<Long> findPostsVersion(@Param("userId") Long userId);
+
+    // The owner's posts version for a post reached through a share link, looked up by its
+    // token before the link or its post is loaded
+    @Query("SELECT v.postsVersion FROM ShareableLink sl, UserVersion v WHERE sl.token = :token AND v.userId = sl.post.user.id")
+    Optional<Long> findPostsVersionByLinkToken(@Param("token") String token);
+
+    @Query("SELECT v.auditVersion FROM UserVersion v WHERE v.userId = :userId")
+    Optional<Long> findAuditVersion(@Param("userId") Long userId);
+
+    @Query("SELECT v.profileVersion FROM UserVersion v WHERE v.userId = :userId")
+    Optional<Long> findProfileVersion(@Param("userId") Long userId);
+}
@@ -0,0 +1,45 @@
+package com.securemydocs.request;
+
+// Body of POST /api/uploads
+public class CreateUploadRequest {
+
+    private String fileName;
+    private String contentType;
+    private Long size;
+    private String captions;
+
+    public CreateUploadRequest() {
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public String getCaptions() {
+        return captions;
+    }
+
+    public void setCaptions(String captions) {
+        this.captions = captions;
+    }
+}
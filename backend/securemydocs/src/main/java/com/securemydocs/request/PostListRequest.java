@@ -0,0 +1,77 @@
+package com.securemydocs.request;
+
+// Query parameters for GET /api/posts/page
+public class PostListRequest {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    private String cursor;
+    private Integer limit;
+    private String sort;         // "newest" (default) or "oldest"
+    private String fileType;     // "document", "image" or "video"
+    private String namePrefix;
+    private Boolean otpProtected;
+
+    public PostListRequest() {
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public void setSort(String sort) {
+        this.sort = sort;
+    }
+
+    public String getFileType() {
+        return fileType;
+    }
+
+    public void setFileType(String fileType) {
+        this.fileType = fileType;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public void setNamePrefix(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    public Boolean getOtpProtected() {
+        return otpProtected;
+    }
+
+    public void setOtpProtected(Boolean otpProtected) {
+        this.otpProtected = otpProtected;
+    }
+
+    public int getEffectiveLimit() {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    public boolean isAscending() {
+        return "oldest".equalsIgnoreCase(sort);
+    }
+}
@@ -0,0 +1,24 @@
+package com.securemydocs.response;
+
+import java.time.LocalDateTime;
+
+import com.securemydocs.model.AuditAction;
+
+// An audit log row without its user, as the API and the export show it: the action by
+// name and the file name resolved from the post it refers to
+public record AuditLogEntry(
+        Long id,
+        String action,
+        String fileName,
+        LocalDateTime timestamp) {
+
+    public AuditLogEntry(Long id, AuditAction action, String fileName, LocalDateTime timestamp) {
+        this(id, action.name(), fileName, timestamp);
+    }
+
+    // Used by the repository projections, which read the action as its stored code and,
+    // for entries migrated as OTHER, the name they were recorded with
+    public AuditLogEntry(Long id, AuditAction action, String actionName, String fileName, LocalDateTime timestamp) {
+        this(id, actionName != null ? actionName : action.name(), fileName, timestamp);
+    }
+}
@@ -0,0 +1,14 @@
+package com.securemydocs.response;
+
+import java.util.List;
+
+// Outcome of a bulk import. Only the first errors are listed; failed counts all of them.
+public record ImportReport(
+        long imported,
+        long failed,
+        List<LineError> errors,
+        boolean errorsTruncated) {
+
+    public record LineError(long line, String message) {
+    }
+}
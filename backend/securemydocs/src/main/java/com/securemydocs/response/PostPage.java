@@ -0,0 +1,20 @@
+package com.securemydocs.response;
+
+import java.util.List;
+
+// One page of a keyset-paginated listing; nextCursor is null on the last page
+public class PostPage<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    public PostPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() { return items; }
+    public void setItems(List<T> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
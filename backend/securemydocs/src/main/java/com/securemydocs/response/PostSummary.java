@@ -0,0 +1,39 @@
+package com.securemydocs.response;
+
+import java.time.LocalDateTime;
+
+import com.securemydocs.model.Post;
+
+// What the API returns for a post. Selected column-by-column by PostRepository so
+// listings never touch the lazy Post.user association.
+public record PostSummary(
+        Long id,
+        String captions,
+        String image,
+        String video,
+        String document,
+        String imageName,
+        String videoName,
+        String documentName,
+        String thumbnail,
+        boolean otpProtected,
+        LocalDateTime createdAt,
+        Long userId) {
+
+    public static PostSummary from(Post post) {
+        return new PostSummary(
+                post.getId(),
+                post.getCaptions(),
+                post.getImage(),
+                post.getVideo(),
+                post.getDocument(),
+                post.getImageName(),
+                post.getVideoName(),
+                post.getDocumentName(),
+                post.getThumbnail(),
+                post.isOtpProtected(),
+                post.getCreatedAt(),
+                // Reading the id of a lazy proxy doesn't initialize it
+                post.getUser() != null ? post.getUser().getId() : null);
+    }
+}
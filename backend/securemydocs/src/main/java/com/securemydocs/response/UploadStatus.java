@@ -0,0 +1,13 @@
+package com.securemydocs.response;
+
+import java.util.List;
+
+// State of a resumable upload: clients re-send only the chunks listed in missingOffsets
+public record UploadStatus(
+        String uploadId,
+        String fileName,
+        long size,
+        long chunkSize,
+        long receivedBytes,
+        List<Long> missingOffsets) {
+}
@@ -0,0 +1,15 @@
+package com.securemydocs.response;
+
+import com.securemydocs.model.User;
+
+// Public view of a user; never carries the password hash
+public record UserProfile(
+        Long id,
+        String firstName,
+        String lastName,
+        String email) {
+
+    public static UserProfile from(User user) {
+        return new UserProfile(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail());
+    }
+}
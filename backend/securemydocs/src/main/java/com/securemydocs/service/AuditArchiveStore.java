@@ -0,0 +1,243 @@
+package com.securemydocs.service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.securemydocs.response.AuditLogEntry;
+
+// Cold audit history, one month per pair of files under app.audit.archive.dir:
+//   audit-YYYY-MM.ndjson.gz  one JSON row per line, one gzip member per user, users in
+//                            ascending order and each user's rows by (timestamp, id)
+//   audit-YYYY-MM.idx        one "userId offset length" line per member
+// Concatenated members are still a valid gzip file, so the month can be restored with
+// zcat; the index lets a reader decompress one user's rows without touching the rest.
+// The index is moved into place last: a month counts as archived once it exists.
+// Every page of audit history asks for the archived months, so the listing is kept until
+// the directory's modification time changes, which moving an index into it does.
+@Component
+public class AuditArchiveStore {
+
+    private static final Pattern INDEX_FILE = Pattern.compile("audit-(\\d{4}-\\d{2})\\.idx");
+
+    public record Row(Long id, Long userId, String action, String fileName, LocalDateTime timestamp) {
+    }
+
+    private record Listing(FileTime modified, NavigableSet<YearMonth> months) {
+    }
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.audit.archive.dir:./data/audit-archive}")
+    private Path dir;
+
+    private volatile Listing listing;
+
+    // Unmodifiable, ascending
+    public NavigableSet<YearMonth> months() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return Collections.emptyNavigableSet();
+        }
+        FileTime modified = Files.getLastModifiedTime(dir);
+        Listing cached = listing;
+        if (cached != null && cached.modified().equals(modified)) {
+            return cached.months();
+        }
+
+        NavigableSet<YearMonth> months = new TreeSet<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                Matcher matcher = INDEX_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    months.add(YearMonth.parse(matcher.group(1)));
+                }
+            });
+        }
+        NavigableSet<YearMonth> found = Collections.unmodifiableNavigableSet(months);
+        // A file system with coarse timestamps may show the same time before and after an
+        // index arrives, so a listing is only kept once its directory time is settled
+        if (modified.toInstant().isBefore(Instant.now().minusSeconds(2))) {
+            listing = new Listing(modified, found);
+        }
+        return found;
+    }
+
+    public boolean contains(YearMonth month) {
+        return Files.exists(indexFile(month));
+    }
+
+    // Rows must come ordered by user, then timestamp and id. Returns the number written.
+    public long write(YearMonth month, Iterator<Row> rows) throws IOException {
+        Files.createDirectories(dir);
+        Path dataTemp = dir.resolve(dataFile(month).getFileName() + ".tmp");
+        Path indexTemp = dir.resolve(indexFile(month).getFileName() + ".tmp");
+        ObjectWriter rowWriter = objectMapper.writerFor(Row.class);
+        long count = 0;
+
+        try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(dataTemp), 64 * 1024);
+             Writer index = Files.newBufferedWriter(indexTemp, StandardCharsets.UTF_8)) {
+            MemberOutput out = new MemberOutput(file);
+            Long user = null;
+            long memberStart = 0;
+            Writer member = null;
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                if (!row.userId().equals(user)) {
+                    if (member != null) {
+                        member.close();
+                        index.write(user + " " + memberStart + " " + (out.count - memberStart) + "\n");
+                    }
+                    user = row.userId();
+                    memberStart = out.count;
+                    member = new OutputStreamWriter(new GZIPOutputStream(out, 8192), StandardCharsets.UTF_8);
+                }
+                member.write(rowWriter.writeValueAsString(row));
+                member.write('\n');
+                count++;
+            }
+            if (member != null) {
+                member.close();
+                index.write(user + " " + memberStart + " " + (out.count - memberStart) + "\n");
+            }
+        }
+        try (FileChannel channel = FileChannel.open(dataTemp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(dataTemp, dataFile(month), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(indexTemp, indexFile(month), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    // One user's rows of one month, oldest first
+    public List<AuditLogEntry> read(YearMonth month, Long userId) throws IOException {
+        String prefix = userId + " ";
+        String member = null;
+        try (BufferedReader index = Files.newBufferedReader(indexFile(month), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = index.readLine()) != null) {
+                if (line.startsWith(prefix)) {
+                    member = line;
+                    break;
+                }
+            }
+        }
+        if (member == null) {
+            return List.of();
+        }
+        String[] parts = member.split(" ");
+        long offset = Long.parseLong(parts[1]);
+        ByteBuffer bytes = ByteBuffer.allocate(Math.toIntExact(Long.parseLong(parts[2])));
+        try (FileChannel channel = FileChannel.open(dataFile(month), StandardOpenOption.READ)) {
+            while (bytes.hasRemaining()) {
+                if (channel.read(bytes, offset + bytes.position()) < 0) {
+                    throw new IOException("Audit archive " + month + " is truncated");
+                }
+            }
+        }
+
+        ObjectReader rowReader = objectMapper.readerFor(Row.class);
+        List<AuditLogEntry> entries = new ArrayList<>();
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(bytes.array())), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                Row row = rowReader.readValue(line);
+                entries.add(new AuditLogEntry(row.id(), row.action(), row.fileName(), row.timestamp()));
+            }
+        }
+        return entries;
+    }
+
+    // Start of the first month after the given archived ones, where the table takes over;
+    // null when nothing is archived
+    public static LocalDateTime endOf(NavigableSet<YearMonth> months) {
+        return months.isEmpty() ? null : months.last().plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    // A user's archived history, oldest first, read a month at a time
+    public Stream<AuditLogEntry> stream(NavigableSet<YearMonth> months, Long userId) {
+        return months.stream().flatMap(month -> {
+            try {
+                return read(month, userId).stream();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private Path dataFile(YearMonth month) {
+        return dir.resolve("audit-" + month + ".ndjson.gz");
+    }
+
+    private Path indexFile(YearMonth month) {
+        return dir.resolve("audit-" + month + ".idx");
+    }
+
+    // Counts bytes for the index; closing a gzip member must not close the file
+    private static final class MemberOutput extends OutputStream {
+        private final OutputStream out;
+        private long count;
+
+        private MemberOutput(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
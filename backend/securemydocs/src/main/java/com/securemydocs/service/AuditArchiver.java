@@ -0,0 +1,241 @@
+package com.securemydocs.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.securemydocs.model.AuditAction;
+import com.securemydocs.repository.ExportRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// Keeps audit_logs bounded. On MySQL the table is range-partitioned by month on timestamp
+// (partitions pYYYYMM plus a catch-all pmax), with app.audit.partitions.months-ahead empty
+// partitions kept ready. Months older than app.audit.archive.retention-months are written
+// to AuditArchiveStore and then dropped: a whole partition on MySQL, batched range
+// deletes elsewhere. A month whose archive is already complete is only dropped, so a run
+// interrupted between the two steps is finished by the next one.
+// Partitioned InnoDB tables allow no foreign keys and need the partitioning column in
+// every unique key, so the first start on an unpartitioned table drops the user_id foreign
+// key and widens the primary key to (id, timestamp). That rebuilds the table once.
+// Off by default: turn it on (app.audit.archive.enabled) on exactly one node, since two
+// would race on the same partitions and files, and put app.audit.archive.dir on storage
+// every node can read, since reads of archived months go to those files.
+@Component
+public class AuditArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditArchiver.class);
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    // Archives hold entries as the API shows them, action names and file names decoded
+    private static final String ENTRY_COLUMNS = "SELECT a.id, a.user_id, a.action_code, a.action_name, "
+            + "COALESCE(n.file_name, a.detail), a.timestamp ";
+    private static final String POST_NAMES = "LEFT JOIN audit_post_names n ON n.post_id = a.post_id ";
+
+    private record Partition(String name, LocalDate bound) {
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private AuditArchiveStore archiveStore;
+
+    @Autowired
+    private ExportRepository exportRepository;
+
+    @Value("${app.audit.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.audit.archive.retention-months:12}")
+    private int retentionMonths;
+
+    @Value("${app.audit.archive.delete-batch-size:5000}")
+    private int deleteBatchSize;
+
+    @Value("${app.audit.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    private JdbcTemplate jdbcTemplate;
+    private boolean mysql;
+
+    @PostConstruct
+    public void init() throws Exception {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, metaData -> metaData.getDatabaseProductName());
+        mysql = "MySQL".equalsIgnoreCase(product);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void preparePartitions() {
+        if (!enabled || !mysql) {
+            return;
+        }
+        try {
+            if (partitions().isEmpty()) {
+                partitionTable();
+            } else {
+                addPartitionsAhead();
+            }
+        } catch (Exception e) {
+            logger.error("Failed to prepare audit_logs partitions", e);
+        }
+    }
+
+    @Scheduled(cron = "${app.audit.archive.cron:0 30 3 * * *}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (mysql && !partitions().isEmpty()) {
+                addPartitionsAhead();
+                archivePartitions();
+            } else {
+                archiveMonths();
+            }
+        } catch (Exception e) {
+            logger.error("Audit archival failed", e);
+        }
+    }
+
+    private LocalDate cutoff() {
+        return YearMonth.now().minusMonths(retentionMonths).atDay(1);
+    }
+
+    private void archivePartitions() throws Exception {
+        LocalDate cutoff = cutoff();
+        for (Partition partition : partitions()) {
+            if (partition.bound() == null || partition.bound().isAfter(cutoff)) {
+                break;
+            }
+            YearMonth month = YearMonth.from(partition.bound().minusMonths(1));
+            // The name comes from information_schema, never from input
+            archive(month, ENTRY_COLUMNS + "FROM audit_logs PARTITION (" + partition.name() + ") a " + POST_NAMES
+                    + "ORDER BY a.user_id, a.timestamp, a.id");
+            jdbcTemplate.execute("ALTER TABLE audit_logs DROP PARTITION " + partition.name());
+            logger.info("Dropped audit partition {}", partition.name());
+        }
+    }
+
+    private void archiveMonths() throws Exception {
+        LocalDate cutoff = cutoff();
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM audit_logs", LocalDateTime.class);
+        if (oldest == null) {
+            return;
+        }
+        for (YearMonth month = YearMonth.from(oldest); month.atEndOfMonth().isBefore(cutoff); month = month.plusMonths(1)) {
+            Timestamp start = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+            Timestamp end = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+            archive(month, ENTRY_COLUMNS + "FROM audit_logs a " + POST_NAMES
+                    + "WHERE a.timestamp >= ? AND a.timestamp < ? ORDER BY a.user_id, a.timestamp, a.id", start, end);
+            long deleted = 0;
+            int batch;
+            do {
+                batch = jdbcTemplate.update("DELETE FROM audit_logs WHERE timestamp >= ? AND timestamp < ? LIMIT ?",
+                        start, end, deleteBatchSize);
+                deleted += batch;
+            } while (batch == deleteBatchSize);
+            if (deleted > 0) {
+                logger.info("Deleted {} archived audit entries of {}", deleted, month);
+            }
+        }
+    }
+
+    private void archive(YearMonth month, String sql, Object... args) throws Exception {
+        if (archiveStore.contains(month)) {
+            return;
+        }
+        RowMapper<AuditArchiveStore.Row> mapper = (rs, rowNum) -> {
+            String actionName = rs.getString(4);
+            return new AuditArchiveStore.Row(rs.getLong(1), rs.getLong(2),
+                    actionName != null ? actionName : AuditAction.fromCode(rs.getShort(3)).name(),
+                    rs.getString(5), rs.getObject(6, LocalDateTime.class));
+        };
+        // Through the export pool, whose server-side cursor keeps one fetch batch in memory
+        try (Stream<AuditArchiveStore.Row> rows = exportRepository.stream(sql, mapper, args)) {
+            long written = archiveStore.write(month, rows.iterator());
+            logger.info("Archived {} audit entries of {}", written, month);
+        }
+    }
+
+    // Bounded partitions oldest first, then pmax (bound null); empty when not partitioned
+    private List<Partition> partitions() {
+        return jdbcTemplate.query("SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'audit_logs' AND PARTITION_NAME IS NOT NULL "
+                + "ORDER BY PARTITION_ORDINAL_POSITION", (rs, rowNum) -> {
+                    String bound = rs.getString(2).replace("'", "");
+                    return new Partition(rs.getString(1),
+                            "MAXVALUE".equalsIgnoreCase(bound) ? null : LocalDate.parse(bound.substring(0, 10)));
+                });
+    }
+
+    private void partitionTable() {
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM audit_logs", LocalDateTime.class);
+        LocalDateTime now = LocalDateTime.now();
+        // Entries written before timestamps were required count as the oldest known one
+        jdbcTemplate.update("UPDATE audit_logs SET timestamp = ? WHERE timestamp IS NULL",
+                Timestamp.valueOf(oldest != null ? oldest : now));
+        jdbcTemplate.execute("ALTER TABLE audit_logs MODIFY timestamp DATETIME(6) NOT NULL");
+        for (String foreignKey : jdbcTemplate.queryForList("SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS "
+                + "WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = 'audit_logs'", String.class)) {
+            jdbcTemplate.execute("ALTER TABLE audit_logs DROP FOREIGN KEY `" + foreignKey + "`");
+        }
+        jdbcTemplate.execute("ALTER TABLE audit_logs DROP PRIMARY KEY, ADD PRIMARY KEY (id, timestamp)");
+
+        StringJoiner definitions = new StringJoiner(", ", "ALTER TABLE audit_logs PARTITION BY RANGE COLUMNS(timestamp) (", ")");
+        YearMonth last = YearMonth.from(now).plusMonths(monthsAhead);
+        for (YearMonth month = YearMonth.from(oldest != null ? oldest : now); !month.isAfter(last); month = month.plusMonths(1)) {
+            definitions.add(definition(month));
+        }
+        definitions.add("PARTITION pmax VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute(definitions.toString());
+        logger.info("Partitioned audit_logs by month up to {}", last);
+    }
+
+    // Splits the months up to months-ahead off pmax, which stays empty until then
+    private void addPartitionsAhead() {
+        LocalDate highest = null;
+        for (Partition partition : partitions()) {
+            if (partition.bound() != null) {
+                highest = partition.bound();
+            }
+        }
+        YearMonth last = YearMonth.now().plusMonths(monthsAhead);
+        List<String> added = new ArrayList<>();
+        for (YearMonth month = highest != null ? YearMonth.from(highest) : YearMonth.now(); !month.isAfter(last); month = month.plusMonths(1)) {
+            added.add(definition(month));
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE audit_logs REORGANIZE PARTITION pmax INTO (" + String.join(", ", added)
+                + ", PARTITION pmax VALUES LESS THAN (MAXVALUE))");
+        logger.info("Added {} audit partitions up to {}", added.size(), last);
+    }
+
+    private static String definition(YearMonth month) {
+        return "PARTITION " + month.format(PARTITION_NAME) + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + " 00:00:00')";
+    }
+}
@@ -0,0 +1,133 @@
+package com.securemydocs.service;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.StringJoiner;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import com.securemydocs.model.AuditAction;
+
+// Moves audit_logs rows written before actions were stored as codes: the action name
+// becomes action_code and the file name goes to detail (old rows cannot be tied to a
+// post reliably, names repeat). A name matching no AuditAction is stored as OTHER and
+// kept in action_name, which the API shows instead. Runs in batches of batch-size rows,
+// then drops the old columns. Hibernate adds the new columns on start, so only the data
+// is moved here: the migration runs right after the EntityManagerFactory and before the
+// web server starts, so no request reads half-migrated rows, and before AuditArchiver,
+// whose archives read the codes. On MySQL one node at a time migrates (GET_LOCK); a
+// failure fails the start.
+@Component
+@DependsOn("entityManagerFactory")
+public class AuditLogMigration implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogMigration.class);
+    private static final String LOCK_NAME = "securemydocs.audit-log-migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 600;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${app.audit.migration.batch-size:5000}")
+    private int batchSize;
+
+    @Override
+    public void afterPropertiesSet() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+            if (mysql) {
+                lock(connection);
+            }
+            try {
+                // On the locked connection, so the columns are checked after another node finished
+                migrate(new JdbcTemplate(new SingleConnectionDataSource(connection, true)));
+            } finally {
+                if (mysql) {
+                    unlock(connection);
+                }
+            }
+            return null;
+        });
+    }
+
+    private void migrate(JdbcTemplate jdbcTemplate) {
+        boolean action = hasColumn(jdbcTemplate, "action");
+        boolean fileName = hasColumn(jdbcTemplate, "file_name");
+        if (action && fileName) {
+            backfill(jdbcTemplate);
+        }
+        // One at a time, so a start interrupted in between drops the other next time
+        if (action) {
+            jdbcTemplate.execute("ALTER TABLE audit_logs DROP COLUMN action");
+        }
+        if (fileName) {
+            jdbcTemplate.execute("ALTER TABLE audit_logs DROP COLUMN file_name");
+        }
+    }
+
+    private void backfill(JdbcTemplate jdbcTemplate) {
+        StringJoiner code = new StringJoiner(" ", "CASE action ", " ELSE " + AuditAction.OTHER.getCode() + " END");
+        StringJoiner name = new StringJoiner(" ", "CASE action ", " ELSE action END");
+        for (AuditAction action : AuditAction.values()) {
+            if (action != AuditAction.OTHER) {
+                code.add("WHEN '" + action.name() + "' THEN " + action.getCode());
+            }
+            name.add("WHEN '" + action.name() + "' THEN NULL");
+        }
+        long migrated = 0;
+        int batch;
+        do {
+            // action is cleared last: MySQL evaluates the assignments in order
+            batch = jdbcTemplate.update("UPDATE audit_logs SET action_code = " + code + ", action_name = " + name
+                    + ", detail = file_name, action = NULL WHERE action IS NOT NULL LIMIT ?", batchSize);
+            migrated += batch;
+        } while (batch == batchSize);
+        logger.info("Migrated {} audit entries to action codes", migrated);
+    }
+
+    private static void lock(Connection connection) throws SQLException {
+        try (var statement = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            statement.setString(1, LOCK_NAME);
+            statement.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet result = statement.executeQuery()) {
+                if (!result.next() || result.getInt(1) != 1) {
+                    throw new IllegalStateException("Timed out waiting for another node's audit log migration");
+                }
+            }
+        }
+    }
+
+    private static void unlock(Connection connection) throws SQLException {
+        try (var statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, LOCK_NAME);
+            statement.executeQuery().close();
+        }
+    }
+
+    private static boolean hasColumn(JdbcTemplate jdbcTemplate, String name) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            boolean upper = metaData.storesUpperCaseIdentifiers();
+            String table = upper ? "AUDIT_LOGS" : "audit_logs";
+            String column = upper ? name.toUpperCase(Locale.ROOT) : name;
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, table, column)) {
+                return columns.next();
+            }
+        }));
+    }
+}
@@ -1,12 +1,16 @@
 package com.securemydocs.service;
 
-import com.securemydocs.model.AuditLog;
+import com.securemydocs.model.AuditAction;
+import com.securemydocs.model.Post;
 import com.securemydocs.model.User;
-import com.securemydocs.repository.AuditLogRepository;
+import com.securemydocs.request.AuditLogListRequest;
+import com.securemydocs.response.AuditLogEntry;
+import com.securemydocs.response.PostPage;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,36 +19,76 @@ import java.util.List;
 public class AuditLogService {
 
     @Autowired
-    private AuditLogRepository auditLogRepository;
+    private AuditLogStore auditLogStore;
 
-    public List<AuditLog> getLogsForCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String currentUsername = authentication.getName();
-        
-        return auditLogRepository.findByUserEmailOrderByTimestampDesc(currentUsername);
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @Autowired
+    private AuditLogWriter auditLogWriter;
+
+    public List<AuditLogEntry> getLogsForUser(Long userId) {
+        return auditLogStore.findNewestFirst(userId);
+    }
+
+    @Transactional(readOnly = true)
+    public PostPage<AuditLogEntry> getLogPage(Long userId, AuditLogListRequest request) {
+        int limit = request.getEffectiveLimit();
+
+        if (request.getFrom() != null && request.getTo() != null && !request.getFrom().isBefore(request.getTo())) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        PostCursor cursor = null;
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            cursor = PostCursor.decode(request.getCursor());
+        }
+
+        // One extra row tells whether another page exists without a count query
+        List<AuditLogEntry> rows = auditLogStore.find(userId, request, cursor, limit + 1);
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            AuditLogEntry last = rows.get(limit - 1);
+            nextCursor = PostCursor.encode(last.timestamp(), last.id());
+        }
+        return new PostPage<>(rows, nextCursor);
+    }
+
+    // Entries posted by the client name a known action; the file name is kept as free text
+    @Transactional
+    public AuditLogEntry createAuditLog(String action, String fileName, User currentUser) {
+        AuditAction auditAction = AuditAction.find(action)
+                .filter(known -> known != AuditAction.OTHER)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown audit action: " + action));
+
+        AuditLogWriter.Entry entry = new AuditLogWriter.Entry(auditAction, fileName, currentUser.getId(), LocalDateTime.now());
+        AuditLogEntry saved = auditLogStore.append(List.of(entry)).get(0);
+        changeVersionService.markChanged(currentUser.getId(), ChangeVersionService.Scope.AUDIT);
+        return saved;
+    }
+
+    // Queued for AuditLogWriter once the caller's transaction commits, so the insert adds
+    // nothing to the request's transaction and a rolled-back change leaves no entry behind
+    public void saveLog(AuditAction action, Post post, String fileName, User user) {
+        submitAfterCommit(new AuditLogWriter.Entry(action, post.getId(), fileName, null, user.getId(), LocalDateTime.now()));
     }
 
-    public AuditLog createAuditLog(String action, String fileName) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = (User) authentication.getPrincipal();
-        
-        AuditLog auditLog = new AuditLog();
-        auditLog.setAction(action);
-        auditLog.setFileName(fileName);
-        auditLog.setUser(currentUser);
-        auditLog.setTimestamp(LocalDateTime.now());
-        
-        return auditLogRepository.save(auditLog);
+    // An entry about no single post, e.g. an import
+    public void saveLog(AuditAction action, String detail, User user) {
+        submitAfterCommit(new AuditLogWriter.Entry(action, detail, user.getId(), LocalDateTime.now()));
     }
 
-    // ADD THIS METHOD - it matches what PostServiceImplementation is calling
-    public AuditLog saveLog(String action, String fileName, User user) {
-        AuditLog auditLog = new AuditLog();
-        auditLog.setAction(action);
-        auditLog.setFileName(fileName);
-        auditLog.setUser(user);
-        auditLog.setTimestamp(LocalDateTime.now());
-        
-        return auditLogRepository.save(auditLog);
+    private void submitAfterCommit(AuditLogWriter.Entry entry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            auditLogWriter.submit(entry);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                auditLogWriter.submit(entry);
+            }
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package com.securemydocs.service;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.securemydocs.request.AuditLogListRequest;
+import com.securemydocs.response.AuditLogEntry;
+
+// Where audit entries are kept. DatabaseAuditLogStore, the default, uses the audit_logs
+// table and its monthly archives; SegmentAuditLogStore appends to hash-chained segment
+// files (app.audit.store=segments). Entries arrive through AuditLogWriter, which appends
+// inside a transaction, and are read back in (timestamp, id) order.
+public interface AuditLogStore {
+
+    // Returns the entries as the API shows them, ids assigned
+    List<AuditLogEntry> append(List<AuditLogWriter.Entry> entries);
+
+    // Up to max entries after the cursor (null for the first page) in the request's order,
+    // within its time range and action; the request has been validated
+    List<AuditLogEntry> find(Long userId, AuditLogListRequest request, PostCursor cursor, int max);
+
+    List<AuditLogEntry> findNewestFirst(Long userId);
+
+    // Oldest first, for the export; the caller closes the stream
+    Stream<AuditLogEntry> streamOldestFirst(Long userId);
+}
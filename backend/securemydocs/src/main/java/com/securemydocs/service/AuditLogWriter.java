@@ -0,0 +1,255 @@
+package com.securemydocs.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.securemydocs.model.AuditAction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Writes audit entries off the request path. AuditLogService hands entries over once the
+// caller's transaction has committed; one writer thread drains the bounded queue and
+// appends up to flush-size entries per transaction to the AuditLogStore, or whatever
+// arrived within flush-interval-ms of the first one. When the queue stays full for
+// max-block-millis the caller writes its entry itself: audit writes slow down under
+// pressure but are never dropped. Shutdown stops the intake and drains what is queued.
+// The users' audit versions are bumped in a transaction of their own once the append has
+// committed: a store may not be able to take an append back (SegmentAuditLogStore), so a
+// failure after it must not make the entries be appended again.
+// Metrics: audit.writer.queue.depth, audit.writer.batch and
+// audit.writer.entries{outcome=written|inline|failed}.
+@Service
+public class AuditLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    // Queued by stop() so the writer stops waiting at once instead of at the next interval
+    private static final Entry STOP = new Entry(null, null, null, null);
+
+    // postId and fileName for entries about a post, detail otherwise
+    public record Entry(AuditAction action, Long postId, String fileName, String detail, Long userId,
+            LocalDateTime timestamp) {
+
+        public Entry(AuditAction action, String detail, Long userId, LocalDateTime timestamp) {
+            this(action, null, null, detail, userId, timestamp);
+        }
+    }
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AuditLogStore auditLogStore;
+
+    @Value("${app.audit.writer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.audit.writer.flush-size:500}")
+    private int flushSize;
+
+    @Value("${app.audit.writer.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+
+    @Value("${app.audit.writer.max-block-millis:100}")
+    private long maxBlockMillis;
+
+    @Value("${app.audit.writer.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMillis;
+
+    private ArrayBlockingQueue<Entry> queue;
+    private TransactionTemplate transactionTemplate;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        // Inline writes happen in the caller's afterCommit, where only a new transaction may write
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Gauge.builder("audit.writer.queue.depth", queue, ArrayBlockingQueue::size)
+                .description("Audit entries waiting to be written")
+                .register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::run, "audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        queue.offer(STOP);
+        writer.join(shutdownTimeoutMillis);
+        if (writer.isAlive()) {
+            logger.warn("Audit writer did not drain within {} ms, {} entries still queued", shutdownTimeoutMillis, queue.size());
+            return;
+        }
+        // Entries offered while the writer was finishing
+        List<Entry> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.removeIf(entry -> entry == STOP);
+        if (!rest.isEmpty()) {
+            write(rest);
+        }
+    }
+
+    public void submit(Entry entry) {
+        if (running) {
+            try {
+                if (queue.offer(entry, maxBlockMillis, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            append(List.of(entry));
+            outcome("inline", 1);
+        } catch (RuntimeException e) {
+            outcome("failed", 1);
+            logger.error("Failed to write audit entry {} for post {} of user {}", entry.action(), entry.postId(), entry.userId(), e);
+            return;
+        }
+        markChanged(List.of(entry));
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>(flushSize);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                stopping = fill(batch);
+            } catch (InterruptedException e) {
+                stopping = true;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        // Drain without waiting; anything offered after this is written by stop()
+        List<Entry> rest = new ArrayList<>(flushSize);
+        while (queue.drainTo(rest, flushSize) > 0) {
+            rest.removeIf(entry -> entry == STOP);
+            if (!rest.isEmpty()) {
+                write(rest);
+            }
+            rest.clear();
+        }
+    }
+
+    // Waits for the first entry, then gathers more until the batch is full or the interval
+    // has passed. Returns true once stop() has been called.
+    private boolean fill(List<Entry> batch) throws InterruptedException {
+        Entry first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+        if (first == STOP) {
+            return true;
+        }
+        if (first == null) {
+            return !running;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (batch.size() < flushSize) {
+            queue.drainTo(batch, flushSize - batch.size());
+            if (batch.removeIf(entry -> entry == STOP)) {
+                return true;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= flushSize || remaining <= 0) {
+                break;
+            }
+            Entry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == STOP) {
+                return true;
+            }
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return false;
+    }
+
+    private void write(List<Entry> batch) {
+        List<Entry> written = batch;
+        try {
+            Timer.builder("audit.writer.batch")
+                    .description("Time to insert one batch of audit entries")
+                    .register(meterRegistry)
+                    .record(() -> append(batch));
+            outcome("written", batch.size());
+        } catch (RuntimeException e) {
+            // One bad entry must not take the others with it
+            logger.warn("Audit batch of {} entries failed, writing them one by one", batch.size(), e);
+            written = new ArrayList<>(batch.size());
+            for (Entry entry : batch) {
+                try {
+                    append(List.of(entry));
+                    written.add(entry);
+                    outcome("written", 1);
+                } catch (RuntimeException single) {
+                    outcome("failed", 1);
+                    logger.error("Failed to write audit entry {} for post {} of user {}", entry.action(), entry.postId(), entry.userId(), single);
+                }
+            }
+        }
+        if (!written.isEmpty()) {
+            markChanged(written);
+        }
+    }
+
+    // Nothing else runs in this transaction, so once the store has appended only the commit
+    // of its own rows can still fail
+    private void append(List<Entry> entries) {
+        transactionTemplate.executeWithoutResult(status -> auditLogStore.append(entries));
+    }
+
+    // One upsert per user of the entries. A failure leaves their audit views tagged with the
+    // old version until their next entry; the entries themselves are already stored.
+    private void markChanged(List<Entry> entries) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Entry entry : entries) {
+                    changeVersionService.markChanged(entry.userId(), ChangeVersionService.Scope.AUDIT);
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("Failed to bump the audit version after writing {} entries", entries.size(), e);
+        }
+    }
+
+    private void outcome(String outcome, int count) {
+        Counter.builder("audit.writer.entries")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(count);
+    }
+}
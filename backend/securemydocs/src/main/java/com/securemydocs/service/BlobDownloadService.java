@@ -0,0 +1,219 @@
+package com.securemydocs.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.securemydocs.exceptions.ResourceNotFoundException;
+import com.securemydocs.model.Post;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Writes blob contents to the HTTP response without copying them through the heap:
+// Tomcat's sendfile when the connector supports it, FileChannel.transferTo otherwise.
+// Blobs never change once stored, so the key doubles as a strong ETag and every
+// response supports conditional GET and byte ranges (single or multipart/byteranges).
+@Service
+public class BlobDownloadService {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String CRLF = "\r\n";
+
+    @Autowired
+    private BlobStore blobStore;
+
+    // Streams the first stored file of the post (document, then image, then video)
+    public void writePost(Post post, HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ResourceNotFoundException {
+
+        if (BlobStore.isRef(post.getDocument())) {
+            write(BlobStore.keyOf(post.getDocument()), post.getDocumentName(), request, response);
+        } else if (BlobStore.isRef(post.getImage())) {
+            write(BlobStore.keyOf(post.getImage()), post.getImageName(), request, response);
+        } else if (BlobStore.isRef(post.getVideo())) {
+            write(BlobStore.keyOf(post.getVideo()), post.getVideoName(), request, response);
+        } else {
+            throw new ResourceNotFoundException("This post has no stored file content");
+        }
+    }
+
+    public static boolean hasStoredContent(Post post) {
+        return BlobStore.isRef(post.getDocument())
+                || BlobStore.isRef(post.getImage())
+                || BlobStore.isRef(post.getVideo());
+    }
+
+    public void write(String key, String fileName, HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ResourceNotFoundException {
+
+        BlobInfo info = blobStore.stat(key)
+                .orElseThrow(() -> new ResourceNotFoundException("File content not found"));
+
+        String etag = "\"" + key + "\"";
+        long lastModified = info.lastModified().toEpochMilli();
+        MediaType mediaType = MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM);
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+
+        // Handles If-None-Match / If-Modified-Since (304) and If-Match / If-Unmodified-Since (412),
+        // and sets ETag and Last-Modified on the response either way
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                .filename(fileName != null ? fileName : key, StandardCharsets.UTF_8)
+                .build()
+                .toString());
+
+        List<long[]> ranges;
+        try {
+            ranges = requestedRanges(request, info.size(), etag, lastModified);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + info.size());
+            return;
+        }
+
+        boolean head = "HEAD".equals(request.getMethod());
+
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(mediaType.toString());
+            response.setContentLengthLong(info.size());
+            if (!head) {
+                send(key, 0, info.size(), request, response);
+            }
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+
+        if (ranges.size() == 1) {
+            long start = ranges.get(0)[0];
+            long end = ranges.get(0)[1];
+            response.setContentType(mediaType.toString());
+            response.setContentLengthLong(end - start + 1);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(start, end, info.size()));
+            if (!head) {
+                send(key, start, end - start + 1, request, response);
+            }
+            return;
+        }
+
+        // multipart/byteranges: part headers are known up front, so the exact length can be sent
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (long[] range : ranges) {
+            byte[] partHeader = (CRLF + "--" + boundary + CRLF
+                    + HttpHeaders.CONTENT_TYPE + ": " + mediaType + CRLF
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(range[0], range[1], info.size()) + CRLF
+                    + CRLF).getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(partHeader);
+            contentLength += partHeader.length + (range[1] - range[0] + 1);
+        }
+        byte[] trailer = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+        contentLength += trailer.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (head) {
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel channel = Channels.newChannel(out);
+        for (int i = 0; i < ranges.size(); i++) {
+            long[] range = ranges.get(i);
+            out.write(partHeaders.get(i));
+            blobStore.transferTo(key, range[0], range[1] - range[0] + 1, channel);
+        }
+        out.write(trailer);
+    }
+
+    // Returns inclusive [start, end] pairs, or an empty list when the whole blob should be sent.
+    // Throws IllegalArgumentException when the Range header cannot be satisfied.
+    private List<long[]> requestedRanges(HttpServletRequest request, long size, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !rangeHeader.startsWith("bytes=")) {
+            return List.of();
+        }
+
+        // If-Range: only honour the range when the client's copy is still current
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            long ifRangeDate = -1;
+            if (!ifRange.startsWith("\"") && !ifRange.startsWith("W/")) {
+                try {
+                    ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+                } catch (IllegalArgumentException e) {
+                    // unparseable validator: fall back to sending the full body
+                }
+            }
+            if (ifRangeDate < 0 || lastModified / 1000 > ifRangeDate / 1000) {
+                return List.of();
+            }
+        }
+
+        // parseRanges caps the number of ranges; the total must not exceed the blob
+        // either, otherwise overlapping ranges could amplify a small file into a huge response
+        List<HttpRange> parsed = HttpRange.parseRanges(rangeHeader);
+        List<long[]> ranges = new ArrayList<>(parsed.size());
+        long total = 0;
+        for (HttpRange range : parsed) {
+            long start = range.getRangeStart(size);
+            long end = range.getRangeEnd(size);
+            if (start >= size || start > end) {
+                throw new IllegalArgumentException("Range not satisfiable");
+            }
+            total += end - start + 1;
+            ranges.add(new long[] { start, end });
+        }
+        if (total > size && ranges.size() > 1) {
+            throw new IllegalArgumentException("Requested ranges exceed the file size");
+        }
+        return ranges;
+    }
+
+    private void send(String key, long start, long count, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+
+        Optional<Path> path = blobStore.localPath(key);
+        if (path.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat sends the file itself once the handler returns; nothing may be written here
+            request.setAttribute(SENDFILE_FILENAME, path.get().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        blobStore.transferTo(key, start, count, Channels.newChannel(response.getOutputStream()));
+    }
+
+    private static String contentRange(long start, long end, long size) {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+}
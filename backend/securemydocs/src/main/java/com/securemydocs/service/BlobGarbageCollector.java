@@ -0,0 +1,93 @@
+package com.securemydocs.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.securemydocs.model.BlobRef;
+import com.securemydocs.repository.BlobRefRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// Removes stored files whose reference count has been zero for the grace period. The
+// grace period covers an upload that found the content already on disk but has not yet
+// committed its reference: its row gets updated_at bumped and the file's mtime touched,
+// so neither condition below holds for it. Each blob is handled with its row locked, and
+// the row is only deleted once the file is gone: a file that stays because it was just
+// touched keeps its row, and the next run looks at it again.
+@Component
+public class BlobGarbageCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlobGarbageCollector.class);
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private BlobRefRepository blobRefRepository;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.storage.gc.grace-minutes:10}")
+    private long graceMinutes;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.storage.gc.interval-ms:600000}")
+    public void collect() {
+        LocalDateTime before = LocalDateTime.now().minusMinutes(graceMinutes);
+        Instant fileCutoff = Instant.now().minusSeconds(graceMinutes * 60);
+        int removed = 0;
+
+        List<String> keys = blobRefRepository.findUnreferencedKeys(before, PageRequest.of(0, BATCH_SIZE));
+        for (String key : keys) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> collect(key, before, fileCutoff)))) {
+                    removed++;
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to collect blob {}", key, e);
+            }
+        }
+
+        if (removed > 0) {
+            logger.info("Removed {} unreferenced blob(s)", removed);
+        }
+    }
+
+    private boolean collect(String key, LocalDateTime before, Instant fileCutoff) {
+        Optional<BlobRef> row = blobRefRepository.lockUnreferenced(key, before);
+        if (row.isEmpty()) {
+            return false; // re-referenced since it was selected
+        }
+        try {
+            if (!blobStore.deleteIfUntouchedSince(key, fileCutoff)) {
+                return false;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        blobRefRepository.delete(row.get());
+        return true;
+    }
+}
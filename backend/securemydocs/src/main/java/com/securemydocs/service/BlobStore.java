@@ -0,0 +1,77 @@
+package com.securemydocs.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.springframework.web.multipart.MultipartFile;
+
+// Storage for uploaded file contents. Post.document/image/video hold either an
+// external URL (legacy Cloudinary uploads) or a "blob:<key>" reference into this store.
+// Keys are the hex SHA-256 of the content, so storing the same bytes twice keeps one copy;
+// reference counts live in the blob_refs table (see PostService).
+public interface BlobStore {
+
+    String REF_PREFIX = "blob:";
+
+    // Files stored before content addressing have random 32-digit keys and belong to one
+    // post each; they have no reference count
+    Pattern LEGACY_KEY = Pattern.compile("[0-9a-f]{32}");
+
+    // Hashes the stream while it is written out
+    BlobInfo put(InputStream content) throws IOException;
+
+    // Reads the part the servlet container spooled once, hashing it on the way into the store
+    default BlobInfo put(MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return put(in);
+        }
+    }
+
+    // Takes ownership of a finished local file. sha256 is the hex digest when the caller
+    // already computed it, or null; implementations on the same filesystem move the file.
+    default BlobInfo put(Path file, String sha256) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return put(in);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    Optional<BlobInfo> stat(String key) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    // Copies count bytes starting at position to target; returns bytes written
+    long transferTo(String key, long position, long count, WritableByteChannel target) throws IOException;
+
+    // Set when the blob is a plain local file, so the container can sendfile it
+    Optional<Path> localPath(String key);
+
+    void delete(String key) throws IOException;
+
+    // Deletes the blob unless it was stored or touched (a put of the same content) after
+    // cutoff, including while this call runs. True when the blob is gone afterwards.
+    boolean deleteIfUntouchedSince(String key, Instant cutoff) throws IOException;
+
+    static boolean isRef(String value) {
+        return value != null && value.startsWith(REF_PREFIX);
+    }
+
+    static String toRef(String key) {
+        return REF_PREFIX + key;
+    }
+
+    static String keyOf(String ref) {
+        return ref.substring(REF_PREFIX.length());
+    }
+
+    static boolean isLegacyKey(String key) {
+        return LEGACY_KEY.matcher(key).matches();
+    }
+}
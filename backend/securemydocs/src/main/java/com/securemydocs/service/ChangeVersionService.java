@@ -0,0 +1,128 @@
+package com.securemydocs.service;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.securemydocs.repository.UserVersionRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// Version-based ETags for the JSON read endpoints. Writers mark which of a user's views
+// they changed; the counters are bumped in the writer's transaction, once per user just
+// before it commits, so a version can never become visible without the data behind it.
+// Readers look the version up before loading anything: a match is answered with 304,
+// and reading it first means a tag is never newer than the body it is sent with.
+@Service
+public class ChangeVersionService {
+
+    public enum Scope {
+        POSTS, AUDIT, PROFILE
+    }
+
+    @Autowired
+    private UserVersionRepository userVersionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    // Users whose committed posts version is wanted after commit; reading it costs a query
+    private volatile Predicate<Long> postsVersionWanted = userId -> false;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void markChanged(Long userId, Scope scope) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            transactionTemplate.executeWithoutResult(status -> bump(userId, EnumSet.of(scope)));
+            return;
+        }
+        pendingChanges().computeIfAbsent(userId, id -> EnumSet.noneOf(Scope.class)).add(scope);
+    }
+
+    public String etag(Long userId, Scope scope) {
+        Optional<Long> version = switch (scope) {
+            case POSTS -> userVersionRepository.findPostsVersion(userId);
+            case AUDIT -> userVersionRepository.findAuditVersion(userId);
+            case PROFILE -> userVersionRepository.findProfileVersion(userId);
+        };
+        // The user id keeps a browser shared by two accounts from revalidating one
+        // account's cached body with the other's token
+        return "W/\"" + scope.name().toLowerCase(Locale.ROOT) + "-" + userId + "-" + version.orElse(0L) + "\"";
+    }
+
+    // Tags the share link's view of its post; the URL carries the token, so the owner's
+    // posts version is enough to tell one state of the post from the next
+    public String etagForLink(String token) {
+        return "W/\"share-" + userVersionRepository.findPostsVersionByLinkToken(token).orElse(0L) + "\"";
+    }
+
+    public void trackPostsVersions(Predicate<Long> wanted) {
+        postsVersionWanted = wanted;
+    }
+
+    // The posts version the current transaction committed for the user, for after-commit
+    // callbacks that apply the same change to a node-local copy (PostSearchIndex). Empty
+    // before commit, outside a transaction, when it did not change the user's posts, or
+    // when trackPostsVersions did not ask for this user at commit time.
+    public OptionalLong committedPostsVersion(Long userId) {
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        Long version = pending != null ? pending.postsVersions.get(userId) : null;
+        return version != null ? OptionalLong.of(version) : OptionalLong.empty();
+    }
+
+    // Changes of the current transaction, bound to it like a resource and flushed from beforeCommit
+    private Map<Long, EnumSet<Scope>> pendingChanges() {
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending.scopes;
+        }
+        PendingChanges created = new PendingChanges();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                created.scopes.forEach((userId, scopes) -> {
+                    bump(userId, scopes);
+                    // The bumped row stays locked until commit, so this is exactly our version
+                    if (scopes.contains(Scope.POSTS) && postsVersionWanted.test(userId)) {
+                        created.postsVersions.put(userId, userVersionRepository.findPostsVersion(userId).orElse(0L));
+                    }
+                });
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ChangeVersionService.this);
+            }
+        });
+        return created.scopes;
+    }
+
+    private void bump(Long userId, EnumSet<Scope> scopes) {
+        userVersionRepository.bump(userId,
+                scopes.contains(Scope.POSTS) ? 1 : 0,
+                scopes.contains(Scope.AUDIT) ? 1 : 0,
+                scopes.contains(Scope.PROFILE) ? 1 : 0);
+    }
+
+    private static final class PendingChanges {
+        private final Map<Long, EnumSet<Scope>> scopes = new HashMap<>();
+        private final Map<Long, Long> postsVersions = new HashMap<>();
+    }
+}
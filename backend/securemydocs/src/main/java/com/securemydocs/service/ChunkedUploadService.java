@@ -0,0 +1,449 @@
+package com.securemydocs.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.securemydocs.exceptions.ResourceNotFoundException;
+import com.securemydocs.exceptions.UploadQuotaExceededException;
+import com.securemydocs.exceptions.UserException;
+import com.securemydocs.model.Post;
+import com.securemydocs.request.CreateUploadRequest;
+import com.securemydocs.response.UploadStatus;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Resumable uploads. A session preallocates the final file in the blob store's staging
+// directory and every chunk is written straight to its offset through one shared
+// FileChannel (positional writes are safe to run concurrently), so chunks can arrive
+// in any order over parallel connections and finishing is a rename, not a second copy.
+// The SHA-256 content address is computed while the next in-order chunk streams in;
+// only chunks that arrived ahead of it are read back (from the page cache) to catch up.
+// Sessions live in this node's memory: they survive dropped connections, not a restart,
+// and with several nodes behind a load balancer every request of an upload has to reach
+// the node that created it (route /api/uploads/{id}/** sticky on the upload id). Each
+// user may hold at most max-sessions-per-user sessions and max-bytes-per-user reserved
+// bytes, so one account cannot take the whole session table or fill the staging disk.
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+    private static final String FILE_PREFIX = "chunked-";
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private PostService postService;
+
+    @Value("${app.storage.local.root:./data/blobs}")
+    private String storageRoot;
+
+    @Value("${app.upload.chunk-size:8388608}")
+    private long chunkSize;
+
+    @Value("${app.upload.max-size:10737418240}")
+    private long maxSize;
+
+    @Value("${app.upload.max-sessions:1000}")
+    private int maxSessions;
+
+    @Value("${app.upload.max-sessions-per-user:10}")
+    private int maxSessionsPerUser;
+
+    @Value("${app.upload.max-bytes-per-user:21474836480}")
+    private long maxBytesPerUser;
+
+    @Value("${app.upload.session-ttl-minutes:1440}")
+    private long sessionTtlMinutes;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private Path directory;
+
+    @PostConstruct
+    public void init() throws IOException {
+        directory = Paths.get(storageRoot).toAbsolutePath().normalize().resolve("tmp");
+        Files.createDirectories(directory);
+
+        // Sessions from a previous run are gone, so their partial files can never be finished
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, FILE_PREFIX + "*")) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sessions.values().forEach(this::discard);
+        sessions.clear();
+    }
+
+    public UploadStatus create(Long userId, CreateUploadRequest request) throws IOException, UploadQuotaExceededException {
+        if (request.getFileName() == null || request.getFileName().isBlank()) {
+            throw new IllegalArgumentException("fileName is required");
+        }
+        if (request.getSize() == null || request.getSize() <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        if (request.getSize() > maxSize) {
+            throw new IllegalArgumentException("File exceeds the maximum upload size of " + maxSize + " bytes");
+        }
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        Path file = directory.resolve(FILE_PREFIX + uploadId + ".part");
+
+        // Sparse on most filesystems; reserves the length so chunks can land anywhere
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(request.getSize());
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        UploadSession session = new UploadSession(uploadId, userId, request, chunkSize, file, channel);
+        try {
+            register(session);
+        } catch (IllegalStateException | UploadQuotaExceededException e) {
+            discard(session);
+            throw e;
+        }
+        logger.info("Upload {} started: {} bytes in {} chunks", uploadId, session.size, session.chunkCount);
+        return session.status();
+    }
+
+    // Limits are checked and the session added under one lock, so concurrent creates
+    // cannot both slip under them
+    private synchronized void register(UploadSession session) throws UploadQuotaExceededException {
+        if (sessions.size() >= maxSessions) {
+            throw new IllegalStateException("Too many uploads in progress, try again later");
+        }
+        int userSessions = 0;
+        long userBytes = 0;
+        for (UploadSession other : sessions.values()) {
+            if (other.userId.equals(session.userId)) {
+                userSessions++;
+                userBytes += other.size;
+            }
+        }
+        if (userSessions >= maxSessionsPerUser) {
+            throw new UploadQuotaExceededException("At most " + maxSessionsPerUser
+                    + " uploads can be in progress at once; finish or abort one first");
+        }
+        if (userBytes + session.size > maxBytesPerUser) {
+            throw new UploadQuotaExceededException("Uploads in progress would exceed "
+                    + maxBytesPerUser + " bytes; finish or abort one first");
+        }
+        sessions.put(session.id, session);
+    }
+
+    public UploadStatus status(Long userId, String uploadId) throws ResourceNotFoundException {
+        UploadSession session = find(userId, uploadId);
+        synchronized (session) {
+            session.touch();
+            return session.status();
+        }
+    }
+
+    // Writes one chunk at its offset. Re-sending a chunk that already arrived is a no-op,
+    // so clients can blindly retry after a dropped connection.
+    public UploadStatus writeChunk(Long userId, String uploadId, long offset, long contentLength, InputStream body)
+            throws ResourceNotFoundException, IOException {
+
+        UploadSession session = find(userId, uploadId);
+        boolean hashInline;
+        MessageDigest digestBefore = null;
+        if (offset < 0 || offset >= session.size || offset % session.chunkSize != 0) {
+            throw new IllegalArgumentException("offset must be a multiple of " + session.chunkSize + " within the file");
+        }
+        int index = (int) (offset / session.chunkSize);
+        long expected = Math.min(session.chunkSize, session.size - offset);
+        if (contentLength >= 0 && contentLength != expected) {
+            throw new IllegalArgumentException("Chunk at offset " + offset + " must be " + expected + " bytes");
+        }
+
+        synchronized (session) {
+            session.touch();
+            if (session.closed) {
+                throw new IllegalStateException("Upload is already being finalized");
+            }
+            if (session.received.get(index)) {
+                return session.status();
+            }
+            if (session.inFlight.get(index)) {
+                throw new IllegalStateException("Chunk at offset " + offset + " is already being written");
+            }
+            session.inFlight.set(index);
+            hashInline = index == session.hashedChunks && !session.hashing;
+            if (hashInline) {
+                session.hashing = true;
+                digestBefore = session.cloneDigest();
+            }
+        }
+
+        boolean complete = false;
+        try {
+            InputStream in = hashInline ? new DigestInputStream(body, session.digest) : body;
+            ReadableByteChannel source = Channels.newChannel(in);
+            long written = 0;
+            while (written < expected) {
+                long n = session.channel.transferFrom(source, offset + written, expected - written);
+                if (n <= 0) {
+                    break;
+                }
+                written += n;
+            }
+            if (written != expected || body.read() != -1) {
+                throw new IllegalArgumentException("Chunk at offset " + offset + " must be " + expected + " bytes");
+            }
+            complete = true;
+        } finally {
+            synchronized (session) {
+                session.inFlight.clear(index);
+                if (complete) {
+                    session.received.set(index);
+                }
+                if (hashInline) {
+                    if (complete) {
+                        session.hashedChunks++;
+                    } else {
+                        // the digest saw part of a failed chunk; rewind it
+                        session.digest = digestBefore;
+                        session.hashing = false;
+                        session.notifyAll();
+                    }
+                }
+            }
+        }
+
+        if (hashInline) {
+            catchUpHash(session);
+        }
+
+        synchronized (session) {
+            return session.status();
+        }
+    }
+
+    // Feeds chunks that arrived out of order into the digest once the ones before them are
+    // in. Only the thread that set session.hashing touches the digest.
+    private void catchUpHash(UploadSession session) {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try {
+            while (!session.digestBroken) {
+                int index;
+                synchronized (session) {
+                    index = session.hashedChunks;
+                    if (index >= session.chunkCount || !session.received.get(index)) {
+                        return;
+                    }
+                }
+                long position = index * session.chunkSize;
+                long end = Math.min(position + session.chunkSize, session.size);
+                while (position < end) {
+                    buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+                    int n = session.channel.read(buffer, position);
+                    if (n < 0) {
+                        throw new IOException("Upload file is shorter than expected");
+                    }
+                    buffer.flip();
+                    session.digest.update(buffer);
+                    position += n;
+                }
+                synchronized (session) {
+                    session.hashedChunks++;
+                }
+            }
+        } catch (IOException e) {
+            // The chunk itself is stored; finishing the upload will hash the whole file instead
+            logger.warn("Upload {}: incremental hash abandoned: {}", session.id, e.getMessage());
+            session.digestBroken = true;
+        } finally {
+            synchronized (session) {
+                session.hashing = false;
+                session.notifyAll();
+            }
+        }
+    }
+
+    // Moves the assembled file into the blob store and creates the post for it
+    public Post complete(Long userId, String uploadId) throws ResourceNotFoundException, IOException, UserException {
+        UploadSession session = find(userId, uploadId);
+        synchronized (session) {
+            if (session.closed) {
+                throw new IllegalStateException("Upload is already being finalized");
+            }
+            if (session.received.cardinality() != session.chunkCount) {
+                throw new IllegalStateException("Upload is missing "
+                        + (session.chunkCount - session.received.cardinality()) + " chunk(s)");
+            }
+            session.closed = true;
+        }
+        sessions.remove(uploadId, session);
+
+        // A writer may still be catching the digest up; wait for it, then finish any remainder
+        synchronized (session) {
+            while (session.hashing) {
+                try {
+                    session.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    discard(session);
+                    throw new IOException("Interrupted while finishing upload", e);
+                }
+            }
+            session.hashing = true;
+        }
+        catchUpHash(session);
+        String sha256 = session.digestBroken ? null : HexFormat.of().formatHex(session.digest.digest());
+
+        session.channel.force(false);
+        session.channel.close();
+
+        // The stored bytes may be shared with other posts, so a failure below must not delete
+        // them; unreferenced content is left to BlobGarbageCollector
+        BlobInfo blob = blobStore.put(session.file, sha256);
+        Post post = postService.createPostForBlob(
+                blob, session.fileName, session.contentType, session.captions, userId);
+        logger.info("Upload {} finished as post {}", uploadId, post.getId());
+        return post;
+    }
+
+    public void abort(Long userId, String uploadId) throws ResourceNotFoundException {
+        UploadSession session = find(userId, uploadId);
+        synchronized (session) {
+            if (session.closed) {
+                throw new IllegalStateException("Upload is already being finalized");
+            }
+            session.closed = true;
+        }
+        sessions.remove(uploadId, session);
+        discard(session);
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.cleanup-interval-ms:600000}")
+    public void expireIdleSessions() {
+        long cutoff = System.currentTimeMillis() - sessionTtlMinutes * 60 * 1000;
+        for (UploadSession session : sessions.values()) {
+            synchronized (session) {
+                if (session.closed || session.lastTouched > cutoff || !session.inFlight.isEmpty()) {
+                    continue;
+                }
+                session.closed = true;
+            }
+            sessions.remove(session.id, session);
+            discard(session);
+            logger.info("Upload {} expired after {} minutes idle", session.id, sessionTtlMinutes);
+        }
+    }
+
+    private UploadSession find(Long userId, String uploadId) throws ResourceNotFoundException {
+        UploadSession session = uploadId != null ? sessions.get(uploadId) : null;
+        // Another user's session is reported as missing rather than forbidden
+        if (session == null || !session.userId.equals(userId)) {
+            throw new ResourceNotFoundException("Upload not found");
+        }
+        return session;
+    }
+
+    private void discard(UploadSession session) {
+        try {
+            session.channel.close();
+            Files.deleteIfExists(session.file);
+        } catch (IOException e) {
+            logger.warn("Could not remove partial upload {}: {}", session.file, e.getMessage());
+        }
+    }
+
+    private static final class UploadSession {
+        private final String id;
+        private final Long userId;
+        private final String fileName;
+        private final String contentType;
+        private final String captions;
+        private final long size;
+        private final long chunkSize;
+        private final int chunkCount;
+        private final Path file;
+        private final FileChannel channel;
+        private final BitSet received;
+        private final BitSet inFlight;
+        private MessageDigest digest;
+        private int hashedChunks;
+        private boolean hashing;
+        private volatile boolean digestBroken;
+        private long lastTouched;
+        private boolean closed;
+
+        private UploadSession(String id, Long userId, CreateUploadRequest request, long chunkSize,
+                Path file, FileChannel channel) {
+            this.id = id;
+            this.userId = userId;
+            this.fileName = request.getFileName();
+            this.contentType = request.getContentType();
+            this.captions = request.getCaptions();
+            this.size = request.getSize();
+            this.chunkSize = chunkSize;
+            this.chunkCount = (int) ((size + chunkSize - 1) / chunkSize);
+            this.file = file;
+            this.channel = channel;
+            this.received = new BitSet(chunkCount);
+            this.inFlight = new BitSet(chunkCount);
+            this.lastTouched = System.currentTimeMillis();
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+
+        private MessageDigest cloneDigest() {
+            try {
+                return (MessageDigest) digest.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException("SHA-256 digest cannot be cloned", e);
+            }
+        }
+
+        private void touch() {
+            lastTouched = System.currentTimeMillis();
+        }
+
+        private UploadStatus status() {
+            List<Long> missing = new ArrayList<>();
+            for (int i = received.nextClearBit(0); i < chunkCount; i = received.nextClearBit(i + 1)) {
+                missing.add(i * chunkSize);
+            }
+            long receivedBytes = size - missing.size() * chunkSize;
+            if (!missing.isEmpty() && missing.get(missing.size() - 1) + chunkSize > size) {
+                // the short last chunk was counted as a full one above
+                receivedBytes += missing.get(missing.size() - 1) + chunkSize - size;
+            }
+            return new UploadStatus(id, fileName, size, chunkSize, receivedBytes, missing);
+        }
+    }
+}
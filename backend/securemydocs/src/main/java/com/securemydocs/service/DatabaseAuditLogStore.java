@@ -0,0 +1,239 @@
+package com.securemydocs.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import com.securemydocs.model.AuditAction;
+import com.securemydocs.model.AuditLog;
+import com.securemydocs.model.AuditPostName;
+import com.securemydocs.model.User;
+import com.securemydocs.repository.AuditLogRepository;
+import com.securemydocs.repository.AuditLogSpecifications;
+import com.securemydocs.repository.AuditPostNameRepository;
+import com.securemydocs.repository.ExportRepository;
+import com.securemydocs.request.AuditLogListRequest;
+import com.securemydocs.response.AuditLogEntry;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+// AuditLogStore on the audit_logs table. Months handed to AuditArchiver's archive are
+// read from there and the table only serves what is newer, so a month is never counted
+// twice while it is being dropped. Newest first reads the table and continues into the
+// archive once it runs out; oldest first does the reverse. The hot path, a newest-first
+// page the table can fill, never opens an archive file.
+@Service
+@ConditionalOnProperty(name = "app.audit.store", havingValue = "database", matchIfMissing = true)
+public class DatabaseAuditLogStore implements AuditLogStore {
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private AuditPostNameRepository auditPostNameRepository;
+
+    @Autowired
+    private AuditArchiveStore archiveStore;
+
+    @Autowired
+    private ExportRepository exportRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Ids are assigned in the application, so Hibernate sends these as JDBC batches. Post
+    // names go first, once per post in the batch: a native statement in between would
+    // flush the session and break up the insert batches.
+    @Override
+    public List<AuditLogEntry> append(List<AuditLogWriter.Entry> entries) {
+        Map<Long, String> names = new HashMap<>();
+        for (AuditLogWriter.Entry entry : entries) {
+            if (entry.postId() != null) {
+                names.putIfAbsent(entry.postId(), entry.fileName());
+            }
+        }
+        names.forEach(auditPostNameRepository::remember);
+
+        List<AuditLogEntry> written = new ArrayList<>(entries.size());
+        for (AuditLogWriter.Entry entry : entries) {
+            AuditLog auditLog = new AuditLog();
+            auditLog.setAction(entry.action());
+            if (entry.postId() != null) {
+                auditLog.setPost(entityManager.getReference(AuditPostName.class, entry.postId()));
+            } else {
+                auditLog.setDetail(entry.detail());
+            }
+            auditLog.setUser(entityManager.getReference(User.class, entry.userId()));
+            auditLog.setTimestamp(entry.timestamp());
+            entityManager.persist(auditLog);
+            written.add(new AuditLogEntry(auditLog.getId(), entry.action(),
+                    entry.postId() != null ? entry.fileName() : entry.detail(), entry.timestamp()));
+        }
+        return written;
+    }
+
+    @Override
+    public List<AuditLogEntry> find(Long userId, AuditLogListRequest request, PostCursor cursor, int max) {
+        boolean ascending = request.isAscending();
+        String action = request.getActionFilter();
+        NavigableSet<YearMonth> archived = archivedMonths();
+        LocalDateTime liveFrom = AuditArchiveStore.endOf(archived);
+
+        List<AuditLogEntry> rows = new ArrayList<>(max);
+        if (ascending) {
+            rows.addAll(readArchive(archived, userId, request, action, cursor, true, max));
+            if (rows.size() < max) {
+                rows.addAll(readTable(userId, request, action, cursor, true, liveFrom, max - rows.size()));
+            }
+        } else {
+            rows.addAll(readTable(userId, request, action, cursor, false, liveFrom, max));
+            if (rows.size() < max) {
+                rows.addAll(readArchive(archived, userId, request, action, cursor, false, max - rows.size()));
+            }
+        }
+        return rows;
+    }
+
+    // The table from where the archive ends, then the archived months newest first
+    @Override
+    public List<AuditLogEntry> findNewestFirst(Long userId) {
+        NavigableSet<YearMonth> archived = archivedMonths();
+        LocalDateTime liveFrom = AuditArchiveStore.endOf(archived);
+        List<AuditLogEntry> entries = new ArrayList<>();
+        for (AuditLogEntry entry : auditLogRepository.findEntriesByUserIdNewestFirst(userId)) {
+            if (liveFrom == null || !entry.timestamp().isBefore(liveFrom)) {
+                entries.add(entry);
+            }
+        }
+        for (YearMonth month : archived.descendingSet()) {
+            List<AuditLogEntry> monthEntries = readMonth(month, userId);
+            for (int i = monthEntries.size() - 1; i >= 0; i--) {
+                entries.add(monthEntries.get(i));
+            }
+        }
+        return entries;
+    }
+
+    // Archived months first, then the table from where the archive ends, which skips a
+    // month that is archived but not yet dropped
+    @Override
+    public Stream<AuditLogEntry> streamOldestFirst(Long userId) {
+        NavigableSet<YearMonth> archived = archivedMonths();
+        LocalDateTime liveFrom = AuditArchiveStore.endOf(archived);
+        return Stream.concat(archiveStore.stream(archived, userId),
+                exportRepository.streamAuditEntries(userId)
+                        .filter(entry -> liveFrom == null || !entry.timestamp().isBefore(liveFrom)));
+    }
+
+    private List<AuditLogEntry> readTable(Long userId, AuditLogListRequest request, String action, PostCursor cursor,
+            boolean ascending, LocalDateTime liveFrom, int max) {
+        LocalDateTime from = request.getFrom();
+        if (liveFrom != null && (from == null || from.isBefore(liveFrom))) {
+            from = liveFrom;
+        }
+        if (from != null && request.getTo() != null && !from.isBefore(request.getTo())) {
+            return List.of();
+        }
+        Specification<AuditLog> spec = AuditLogSpecifications.ownedBy(userId);
+        if (from != null) {
+            spec = spec.and(AuditLogSpecifications.from(from));
+        }
+        if (request.getTo() != null) {
+            spec = spec.and(AuditLogSpecifications.before(request.getTo()));
+        }
+        if (action != null) {
+            Optional<AuditAction> code = AuditAction.find(action);
+            spec = spec.and(code.isPresent()
+                    ? AuditLogSpecifications.hasAction(code.get())
+                    : AuditLogSpecifications.hasActionName(action));
+        }
+        if (cursor != null) {
+            spec = spec.and(AuditLogSpecifications.after(cursor.getCreatedAt(), cursor.getId(), ascending));
+        }
+
+        Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort sort = Sort.by(direction, "timestamp").and(Sort.by(direction, "id"));
+        return auditLogRepository.findEntries(spec, sort, max);
+    }
+
+    // Same filters as the table query, applied to one user's rows a month at a time;
+    // months outside the time range or behind the cursor are not opened
+    private List<AuditLogEntry> readArchive(NavigableSet<YearMonth> archived, Long userId, AuditLogListRequest request,
+            String action, PostCursor cursor, boolean ascending, int max) {
+        List<AuditLogEntry> rows = new ArrayList<>();
+        for (YearMonth month : ascending ? archived : archived.descendingSet()) {
+            LocalDateTime start = month.atDay(1).atStartOfDay();
+            LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+            if ((request.getFrom() != null && !end.isAfter(request.getFrom()))
+                    || (request.getTo() != null && !start.isBefore(request.getTo()))
+                    || (cursor != null && ascending && !end.isAfter(cursor.getCreatedAt()))
+                    || (cursor != null && !ascending && start.isAfter(cursor.getCreatedAt()))) {
+                continue;
+            }
+            List<AuditLogEntry> entries = readMonth(month, userId);
+            for (int i = 0; i < entries.size(); i++) {
+                AuditLogEntry entry = entries.get(ascending ? i : entries.size() - 1 - i);
+                if (matches(entry, request, action, cursor, ascending)) {
+                    rows.add(entry);
+                    if (rows.size() == max) {
+                        return rows;
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static boolean matches(AuditLogEntry entry, AuditLogListRequest request, String action, PostCursor cursor,
+            boolean ascending) {
+        if (request.getFrom() != null && entry.timestamp().isBefore(request.getFrom())) {
+            return false;
+        }
+        if (request.getTo() != null && !entry.timestamp().isBefore(request.getTo())) {
+            return false;
+        }
+        if (action != null && !action.equals(entry.action())) {
+            return false;
+        }
+        if (cursor == null) {
+            return true;
+        }
+        int order = entry.timestamp().compareTo(cursor.getCreatedAt());
+        if (order == 0) {
+            order = entry.id().compareTo(cursor.getId());
+        }
+        return ascending ? order > 0 : order < 0;
+    }
+
+    private List<AuditLogEntry> readMonth(YearMonth month, Long userId) {
+        try {
+            return archiveStore.read(month, userId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read audit archive " + month, e);
+        }
+    }
+
+    private NavigableSet<YearMonth> archivedMonths() {
+        try {
+            return archiveStore.months();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list audit archives", e);
+        }
+    }
+
+}
@@ -0,0 +1,219 @@
+package com.securemydocs.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.securemydocs.repository.ExportRepository;
+import com.securemydocs.response.AuditLogEntry;
+import com.securemydocs.response.PostSummary;
+
+import jakarta.annotation.PostConstruct;
+
+// Compliance exports of a user's posts and audit history. Rows come from a cursor-backed
+// Stream on ExportRepository's pool and go straight to the response, so the heap holds
+// one fetch batch at a time however long the history is. The first row is flushed
+// immediately; after that the writer's buffer decides. An export holds its connection
+// until the client has read everything, so at most app.export.max-concurrent run at once
+// and further requests are turned away with 503 instead of queueing for the pool.
+@Service
+public class ExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String fileName(String base) {
+            return base + "." + extension;
+        }
+
+        public static Format of(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("format must be ndjson or csv");
+            }
+        }
+    }
+
+    private static final String[] POST_COLUMNS = { "id", "createdAt", "captions", "documentName", "document",
+            "imageName", "image", "videoName", "video", "otpProtected" };
+    private static final String[] AUDIT_COLUMNS = { "id", "timestamp", "action", "fileName" };
+
+    @Autowired
+    private ExportRepository exportRepository;
+
+    @Autowired
+    private AuditLogStore auditLogStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.export.max-concurrent:4}")
+    private int maxConcurrent;
+
+    private Semaphore running;
+
+    @PostConstruct
+    public void init() {
+        running = new Semaphore(maxConcurrent);
+    }
+
+    @FunctionalInterface
+    public interface RowWriter {
+        void write(Format format, OutputStream out) throws IOException;
+    }
+
+    // The response for an export endpoint: rows are written once Spring hands the body to
+    // its async executor. An unknown format, or every export slot taken, gets the usual
+    // JSON error instead. The slot is taken here and given back when the body is done.
+    public ResponseEntity<StreamingResponseBody> download(String format, String baseName, RowWriter rows) {
+        Format exportFormat;
+        try {
+            exportFormat = Format.of(format);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (!running.tryAcquire()) {
+            return error(HttpStatus.SERVICE_UNAVAILABLE, "Too many exports in progress, try again later");
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, exportFormat.getContentType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(exportFormat.fileName(baseName)).build().toString())
+                .body(out -> {
+                    try {
+                        rows.write(exportFormat, out);
+                    } finally {
+                        running.release();
+                    }
+                });
+    }
+
+    private ResponseEntity<StreamingResponseBody> error(HttpStatus status, String message) {
+        Map<String, String> error = Map.of("status", "error", "message", message);
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, error));
+    }
+
+    public void writePosts(Long userId, Format format, OutputStream out) throws IOException {
+        write(format, out, POST_COLUMNS, () -> exportRepository.streamPostSummaries(userId), post -> new Object[] {
+                post.id(), post.createdAt(), post.captions(), post.documentName(), post.document(),
+                post.imageName(), post.image(), post.videoName(), post.video(), post.otpProtected() });
+    }
+
+    public void writeAuditLog(Long userId, Format format, OutputStream out) throws IOException {
+        write(format, out, AUDIT_COLUMNS, () -> auditLogStore.streamOldestFirst(userId), entry -> new Object[] {
+                entry.id(), entry.timestamp(), entry.action(), entry.fileName() });
+    }
+
+    private <T> void write(Format format, OutputStream out, String[] columns,
+            Supplier<Stream<T>> source, Function<T, Object[]> csvRow) throws IOException {
+        try (Stream<T> rows = source.get()) {
+            if (format == Format.NDJSON) {
+                writeNdjson(rows, out);
+            } else {
+                writeCsv(rows, out, columns, csvRow);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private <T> void writeNdjson(Stream<T> rows, OutputStream out) throws IOException {
+        // The mapper would otherwise flush, and so send a packet, after every row
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        long count = 0;
+        for (T row : (Iterable<T>) rows::iterator) {
+            writer.writeValue(generator, row);
+            generator.writeRaw('\n');
+            if (++count == 1) {
+                generator.flush();
+            }
+        }
+        generator.close();
+    }
+
+    private <T> void writeCsv(Stream<T> rows, OutputStream out, String[] columns, Function<T, Object[]> csvRow) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeCsvLine(writer, columns);
+        writer.flush();
+        for (T row : (Iterable<T>) rows::iterator) {
+            writeCsvLine(writer, csvRow.apply(row));
+        }
+        writer.flush();
+    }
+
+    // RFC 4180: fields with a comma, quote or line break are quoted, quotes doubled. Text
+    // a spreadsheet would run as a formula (=, +, -, @, or a leading tab or CR) gets a
+    // leading apostrophe, so a caption cannot turn into a formula when the file is opened.
+    static void writeCsvLine(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] == null) {
+                continue;
+            }
+            String value = values[i].toString();
+            if (values[i] instanceof CharSequence && isFormula(value)) {
+                value = "'" + value;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static boolean isFormula(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        char first = value.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+    }
+}
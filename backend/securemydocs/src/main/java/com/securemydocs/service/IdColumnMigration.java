@@ -0,0 +1,212 @@
+package com.securemydocs.service;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Widens the id columns of databases created while Post, User and AuditLog ids were
+// Integer: ddl-auto=update never changes a column type, and time-ordered ids do not fit
+// in INT. Runs before the EntityManagerFactory, so nothing reads or writes these tables
+// while they change. Foreign keys pointing at post.id or user.id must match the widened
+// type, so they are dropped, every INT column involved is altered to BIGINT, and the
+// keys are put back under their old names.
+//
+// On MySQL one node at a time migrates (GET_LOCK). If any of the columns is still INT
+// afterwards the start fails, rather than serving requests whose inserts would overflow.
+@Component(IdColumnMigration.BEAN_NAME)
+public class IdColumnMigration implements InitializingBean {
+
+    static final String BEAN_NAME = "idColumnMigration";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdColumnMigration.class);
+    private static final String LOCK_NAME = "securemydocs.id-column-migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 600;
+
+    // Referenced primary keys; foreign keys to them are found through the metadata
+    private static final List<String> REFERENCED_TABLES = List.of("post", "user");
+
+    // Every column holding one of the ids, including those without a foreign key
+    // (audit_logs is partitioned and cannot have any)
+    private static final List<String[]> ID_COLUMNS = List.of(
+            new String[] { "post", "id" },
+            new String[] { "user", "id" },
+            new String[] { "audit_logs", "id" },
+            new String[] { "audit_logs", "post_id" },
+            new String[] { "audit_logs", "user_id" },
+            new String[] { "audit_post_names", "post_id" },
+            new String[] { "user_versions", "user_id" });
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Override
+    public void afterPropertiesSet() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+            if (mysql) {
+                lock(connection);
+            }
+            try {
+                migrate(connection);
+            } finally {
+                if (mysql) {
+                    unlock(connection);
+                }
+            }
+            return null;
+        });
+    }
+
+    private void migrate(Connection connection) throws SQLException {
+        List<IntColumn> narrow = findIntColumns(connection);
+        if (narrow.isEmpty()) {
+            return;
+        }
+        logger.info("Widening {} id column(s) to BIGINT", narrow.size());
+
+        DatabaseMetaData metaData = connection.getMetaData();
+        List<ForeignKey> foreignKeys = findForeignKeys(connection);
+        for (ForeignKey foreignKey : foreignKeys) {
+            execute(connection, "ALTER TABLE " + quote(metaData, foreignKey.table)
+                    + " DROP FOREIGN KEY `" + foreignKey.name + "`");
+        }
+
+        for (IntColumn column : narrow) {
+            execute(connection, "ALTER TABLE " + quote(metaData, column.table) + " MODIFY " + quote(metaData, column.column)
+                    + " BIGINT" + (column.nullable ? "" : " NOT NULL") + (column.autoIncrement ? " AUTO_INCREMENT" : ""));
+        }
+
+        for (ForeignKey foreignKey : foreignKeys) {
+            execute(connection, "ALTER TABLE " + quote(metaData, foreignKey.table)
+                    + " ADD CONSTRAINT `" + foreignKey.name + "`"
+                    + " FOREIGN KEY (" + quote(metaData, foreignKey.column) + ") REFERENCES "
+                    + quote(metaData, foreignKey.referencedTable) + " (" + quote(metaData, foreignKey.referencedColumn) + ")");
+        }
+
+        List<IntColumn> remaining = findIntColumns(connection);
+        if (!remaining.isEmpty()) {
+            throw new IllegalStateException("Id columns are still INT after migration: " + remaining);
+        }
+        logger.info("Id columns widened to BIGINT");
+    }
+
+    // The listed columns, plus every column with a foreign key to post or user, that are still INT
+    private List<IntColumn> findIntColumns(Connection connection) throws SQLException {
+        List<IntColumn> narrow = new ArrayList<>();
+        for (String[] column : ID_COLUMNS) {
+            IntColumn found = describe(connection, column[0], column[1]);
+            if (found != null) {
+                narrow.add(found);
+            }
+        }
+        for (ForeignKey foreignKey : findForeignKeys(connection)) {
+            IntColumn found = describe(connection, foreignKey.table, foreignKey.column);
+            if (found != null && !narrow.contains(found)) {
+                narrow.add(found);
+            }
+        }
+        return narrow;
+    }
+
+    private static List<ForeignKey> findForeignKeys(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        List<ForeignKey> foreignKeys = new ArrayList<>();
+        for (String table : REFERENCED_TABLES) {
+            try (ResultSet keys = metaData.getExportedKeys(connection.getCatalog(), null, identifier(metaData, table))) {
+                while (keys.next()) {
+                    foreignKeys.add(new ForeignKey(
+                            keys.getString("FK_NAME"),
+                            keys.getString("FKTABLE_NAME").toLowerCase(Locale.ROOT),
+                            keys.getString("FKCOLUMN_NAME").toLowerCase(Locale.ROOT),
+                            table,
+                            keys.getString("PKCOLUMN_NAME").toLowerCase(Locale.ROOT)));
+                }
+            }
+        }
+        return foreignKeys;
+    }
+
+    // The column when it exists and is INT, otherwise null
+    private static IntColumn describe(Connection connection, String table, String column) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null,
+                identifier(metaData, table), identifier(metaData, column))) {
+            if (!columns.next() || columns.getInt("DATA_TYPE") != Types.INTEGER) {
+                return null;
+            }
+            return new IntColumn(table, column,
+                    "YES".equals(columns.getString("IS_NULLABLE")),
+                    "YES".equals(columns.getString("IS_AUTOINCREMENT")));
+        }
+    }
+
+    private static void lock(Connection connection) throws SQLException {
+        try (var statement = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            statement.setString(1, LOCK_NAME);
+            statement.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet result = statement.executeQuery()) {
+                if (!result.next() || result.getInt(1) != 1) {
+                    throw new IllegalStateException("Timed out waiting for another node's id column migration");
+                }
+            }
+        }
+    }
+
+    private static void unlock(Connection connection) throws SQLException {
+        try (var statement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            statement.setString(1, LOCK_NAME);
+            statement.executeQuery().close();
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        logger.info("{}", sql);
+        try (var statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static String identifier(DatabaseMetaData metaData, String name) throws SQLException {
+        return metaData.storesUpperCaseIdentifiers() ? name.toUpperCase(Locale.ROOT) : name;
+    }
+
+    private static String quote(DatabaseMetaData metaData, String name) throws SQLException {
+        return "`" + identifier(metaData, name) + "`";
+    }
+
+    private record IntColumn(String table, String column, boolean nullable, boolean autoIncrement) {
+        @Override
+        public String toString() {
+            return table + "." + column;
+        }
+    }
+
+    // name as the database reports it; tables and columns lower case like the mapping
+    private record ForeignKey(String name, String table, String column, String referencedTable, String referencedColumn) {
+    }
+
+    // Makes the EntityManagerFactory, and so Hibernate's schema update, wait for the migration
+    @Component
+    static class EntityManagerFactoryDependency extends EntityManagerFactoryDependsOnPostProcessor {
+        EntityManagerFactoryDependency() {
+            super(BEAN_NAME);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.securemydocs.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+// BlobStore on the local filesystem. Blobs live under root/ab/cd/<sha256> and are
+// written to root/tmp first, then moved into place, so readers never see a partial file.
+// 32-character keys are random ids from before content addressing and are still readable.
+@Service
+public class LocalFileBlobStore implements BlobStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalFileBlobStore.class);
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}|[0-9a-f]{32}");
+
+    @Value("${app.storage.local.root:./data/blobs}")
+    private String rootDirectory;
+
+    private Path root;
+    private Path staging;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(rootDirectory).toAbsolutePath().normalize();
+        staging = root.resolve("tmp");
+        Files.createDirectories(staging);
+        logger.info("Local blob store at {}", root);
+    }
+
+    @Override
+    public BlobInfo put(InputStream content) throws IOException {
+        Path tmp = Files.createTempFile(staging, "upload-", ".part");
+        try {
+            // Streams through a small fixed buffer and hashes on the way; the file is never
+            // held in memory and never read back
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(content, digest)) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return commit(tmp, HexFormat.of().formatHex(digest.digest()));
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // Chunked uploads are assembled under the staging directory, so this is a rename
+    @Override
+    public BlobInfo put(Path file, String sha256) throws IOException {
+        try {
+            return commit(file, sha256 != null ? sha256 : hash(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            return Optional.of(new BlobInfo(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public long transferTo(String key, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ)) {
+            long written = 0;
+            // transferTo may move fewer bytes than asked for, so loop until done
+            while (written < count) {
+                long n = channel.transferTo(position + written, count - written, target);
+                if (n <= 0) {
+                    break;
+                }
+                written += n;
+            }
+            return written;
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    // The file is moved aside before its time is checked for the last time. A put of the
+    // same content that touched it before the move is seen in that check and the file is
+    // put back; one that comes after finds no file and stores its own copy.
+    @Override
+    public boolean deleteIfUntouchedSince(String key, Instant cutoff) throws IOException {
+        Path target = resolve(key);
+        Path aside = target.resolveSibling(key + ".gc");
+        try {
+            if (!Files.getLastModifiedTime(target).toInstant().isBefore(cutoff)) {
+                return false;
+            }
+            Files.move(target, aside, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return true;
+        }
+        if (Files.getLastModifiedTime(aside).toInstant().isBefore(cutoff)) {
+            Files.delete(aside);
+            return true;
+        }
+        try {
+            Files.move(aside, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Stored again meanwhile, same bytes
+            Files.delete(aside);
+        }
+        return false;
+    }
+
+    private BlobInfo commit(Path tmp, String key) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        if (Files.exists(target)) {
+            // Same content already stored. Touching it keeps the garbage collector, which only
+            // removes files untouched for its grace period, off a blob that is being re-referenced.
+            try {
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                BlobInfo info = info(key, target);
+                Files.deleteIfExists(tmp);
+                return info;
+            } catch (NoSuchFileException e) {
+                // Being collected right now; store this copy instead
+            }
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Put back by the collector meanwhile, same bytes
+            Files.deleteIfExists(tmp);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return info(key, target);
+    }
+
+    private static BlobInfo info(String key, Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return new BlobInfo(key, attributes.size(), attributes.lastModifiedTime().toInstant());
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private Path resolve(String key) {
+        // Keys are generated here; anything else could be a path traversal attempt
+        if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid blob key");
+        }
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+}
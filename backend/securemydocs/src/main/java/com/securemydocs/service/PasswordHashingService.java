@@ -0,0 +1,188 @@
+package com.securemydocs.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import com.securemydocs.exceptions.PasswordHashingBusyException;
+import com.securemydocs.model.User;
+import com.securemydocs.repository.UserRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Runs BCrypt on a small dedicated pool so a burst of logins can't take over the
+// Tomcat connector threads. Work that can't start within maxQueueMillis, or that
+// finds the queue full, fails fast with PasswordHashingBusyException (HTTP 429).
+// Rehashes after login run on a separate single low-priority thread, so they never
+// take a slot from a login waiting for its check.
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Value("${app.security.bcrypt.strength:10}")
+    private int strength;
+
+    @Value("${app.security.hashing.threads:4}")
+    private int threads;
+
+    @Value("${app.security.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${app.security.hashing.max-queue-millis:2000}")
+    private long maxQueueMillis;
+
+    @Value("${app.security.hashing.rehash-queue-capacity:16}")
+    private int rehashQueueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private ThreadPoolExecutor rehashExecutor;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        rehashExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(rehashQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-rehash");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+        rehashExecutor.shutdown();
+    }
+
+    public String encode(String rawPassword) throws PasswordHashingBusyException {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) throws PasswordHashingBusyException {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    // True when the stored hash was made with a different work factor than the
+    // configured one, so lowering the cost is picked up as well as raising it
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return !matcher.find() || Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    // Re-encodes the password with the current work factor in the background after a
+    // successful login. Skipped silently when the rehash queue is full; the next login
+    // retries. The new hash only replaces the one that was checked, so a password change
+    // committed while this runs wins.
+    public void rehashAsync(String email, String rawPassword) {
+        try {
+            rehashExecutor.execute(() -> {
+                try {
+                    User user = userRepository.findByEmail(email);
+                    if (user == null || !needsRehash(user.getPassword())) {
+                        return;
+                    }
+                    // The login may have checked a hash that was changed since
+                    String oldHash = user.getPassword();
+                    if (!passwordEncoder.matches(rawPassword, oldHash)) {
+                        return;
+                    }
+                    if (userRepository.replacePasswordHash(user.getId(), oldHash, passwordEncoder.encode(rawPassword)) == 0) {
+                        return;
+                    }
+                    userCache.invalidate(user);
+                    logger.info("Rehashed password for user {} with strength {}", user.getId(), strength);
+                } catch (Exception e) {
+                    logger.warn("Failed to rehash password for {}", email, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Rehash queue full, skipping rehash for {}", email);
+        }
+    }
+
+    private <T> T submit(Callable<T> task) throws PasswordHashingBusyException {
+        long enqueuedAt = System.nanoTime();
+        long maxQueueNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueMillis);
+
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                // Don't burn CPU on a request whose caller has already given up
+                if (System.nanoTime() - enqueuedAt > maxQueueNanos) {
+                    throw new TimeoutException("Queued for more than " + maxQueueMillis + " ms");
+                }
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            throw new PasswordHashingBusyException("Too many login attempts, please retry shortly", e);
+        }
+
+        try {
+            // Leave room for the hash itself on top of the queue budget
+            return future.get(maxQueueMillis * 2, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new PasswordHashingBusyException("Too many login attempts, please retry shortly", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new PasswordHashingBusyException("Too many login attempts, please retry shortly", e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted while waiting for password hashing", e);
+        }
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+}
@@ -0,0 +1,399 @@
+package com.securemydocs.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securemydocs.exceptions.UserException;
+import com.securemydocs.model.AuditAction;
+import com.securemydocs.model.Post;
+import com.securemydocs.model.User;
+import com.securemydocs.repository.BlobRefRepository;
+import com.securemydocs.repository.PostRepository;
+import com.securemydocs.response.ImportReport;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+// Bulk import of posts for files that are already stored, one JSON object per line:
+//   {"documentName":"lease.pdf","document":"blob:<sha256>","captions":"...","createdAt":"2024-03-01T10:00:00"}
+// A blob: reference must be one the user's own posts already hold (a file they uploaded);
+// any other key is refused with the same message whether or not it is stored, so an
+// import can neither attach someone else's file nor probe which contents exist.
+// The body is read line by line with the streaming parser and written in transactions of
+// app.import.batch-size posts, flushing and clearing the persistence context every JDBC
+// batch, so memory stays flat however long the input is. A bad line is reported and
+// skipped; a batch that fails to commit is reported line by line and the import goes on.
+@Service
+public class PostImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostImportService.class);
+    private static final int MAX_LINE_CHARS = 64 * 1024;
+    private static final int MAX_FIELD_LENGTH = 255;
+    private static final Pattern CONTENT_KEY = Pattern.compile("[0-9a-f]{64}");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private BlobRefRepository blobRefRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AuditLogService auditLogService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int flushInterval;
+
+    private JsonFactory jsonFactory;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        jsonFactory = objectMapper.getFactory();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public ImportReport importPosts(Long userId, InputStream body) throws IOException, UserException {
+        User user = userService.findUserById(userId);
+        Set<String> ownRefs = storedFileRefs(userId);
+        Report report = new Report();
+        List<PendingPost> batch = new ArrayList<>(batchSize);
+
+        LineReader lines = new LineReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = lines.next()) != null) {
+            long lineNumber = lines.lineNumber;
+            if (lines.truncated) {
+                report.fail(lineNumber, "line longer than " + MAX_LINE_CHARS + " characters");
+                continue;
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                batch.add(new PendingPost(lineNumber, parse(line, ownRefs)));
+            } catch (JsonProcessingException e) {
+                report.fail(lineNumber, "malformed JSON: " + e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                report.fail(lineNumber, e.getMessage());
+            }
+            if (batch.size() == batchSize) {
+                write(userId, batch, report);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(userId, batch, report);
+        }
+
+        if (report.imported > 0) {
+            try {
+                auditLogService.saveLog(AuditAction.IMPORT, report.imported + " posts", user);
+            } catch (Exception e) {
+                logger.warn("Failed to log audit entry for import of {} posts", report.imported, e);
+            }
+        }
+        return report.toResponse();
+    }
+
+    // Reads one object with the streaming parser; only known string fields are accepted
+    private Post parse(String line, Set<String> ownRefs) throws IOException {
+        Post post = new Post();
+        try (JsonParser parser = jsonFactory.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                if (token != JsonToken.VALUE_STRING) {
+                    throw new IllegalArgumentException(field + " must be a string");
+                }
+                String value = parser.getText();
+                switch (field) {
+                    case "captions" -> post.setCaptions(limited(field, value));
+                    case "image" -> post.setImage(fileRef(field, value, ownRefs));
+                    case "imageName" -> post.setImageName(limited(field, value));
+                    case "video" -> post.setVideo(fileRef(field, value, ownRefs));
+                    case "videoName" -> post.setVideoName(limited(field, value));
+                    case "document" -> post.setDocument(fileRef(field, value, ownRefs));
+                    case "documentName" -> post.setDocumentName(limited(field, value));
+                    case "createdAt" -> post.setCreatedAt(timestamp(value));
+                    default -> throw new IllegalArgumentException("unknown field " + field);
+                }
+            }
+            if (parser.nextToken() != null) {
+                throw new IllegalArgumentException("unexpected content after the object");
+            }
+        }
+        if (post.getImage() == null && post.getVideo() == null && post.getDocument() == null) {
+            throw new IllegalArgumentException("one of image, video or document is required");
+        }
+        if (post.getCreatedAt() == null) {
+            post.setCreatedAt(LocalDateTime.now());
+        }
+        return post;
+    }
+
+    private static String limited(String field, String value) {
+        if (value.length() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException(field + " is longer than " + MAX_FIELD_LENGTH + " characters");
+        }
+        return value;
+    }
+
+    // Either a stored blob the user already references (content-addressed keys only, they
+    // are reference counted) or a URL. The referencing post keeps the file from being
+    // collected, so its existence never needs to be checked here.
+    private static String fileRef(String field, String value, Set<String> ownRefs) {
+        limited(field, value);
+        if (BlobStore.isRef(value)) {
+            if (!CONTENT_KEY.matcher(BlobStore.keyOf(value)).matches() || !ownRefs.contains(value)) {
+                throw new IllegalArgumentException(field + " must refer to a file you have uploaded");
+            }
+            return value;
+        }
+        if (!value.startsWith("https://") && !value.startsWith("http://")) {
+            throw new IllegalArgumentException(field + " must be a blob: reference or an http(s) URL");
+        }
+        return value;
+    }
+
+    private Set<String> storedFileRefs(Long userId) {
+        Set<String> refs = new HashSet<>();
+        for (Object[] fields : postRepository.findStoredFileFieldsByUserId(userId)) {
+            for (Object field : fields) {
+                if (BlobStore.isRef((String) field)) {
+                    refs.add((String) field);
+                }
+            }
+        }
+        return refs;
+    }
+
+    private static LocalDateTime timestamp(String value) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("createdAt must be an ISO-8601 local date-time");
+        }
+    }
+
+    private void write(Long userId, List<PendingPost> batch, Report report) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                persist(userId, batch);
+                // Indexed right after commit, while the version the batch committed is known
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        for (PendingPost pending : batch) {
+                            postSearchIndex.upsert(userId, pending.post());
+                        }
+                    }
+                });
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Import batch of {} posts failed for user {}", batch.size(), userId, e);
+            String message = "not imported, its batch failed: " + rootMessage(e);
+            for (PendingPost pending : batch) {
+                report.fail(pending.line(), message);
+            }
+            return;
+        }
+        report.imported += batch.size();
+
+        // Same follow-up as a single create, now that the batch is committed
+        for (PendingPost pending : batch) {
+            if (ThumbnailService.hasPreviewSource(pending.post())) {
+                thumbnailService.submit(pending.post().getId());
+            }
+        }
+    }
+
+    private void persist(Long userId, List<PendingPost> batch) {
+        // Blob references first: a native statement in between would flush the session
+        // and break up the insert batches
+        Map<String, Integer> references = new HashMap<>();
+        for (PendingPost pending : batch) {
+            Post post = pending.post();
+            for (String ref : new String[] { post.getImage(), post.getVideo(), post.getDocument() }) {
+                if (BlobStore.isRef(ref)) {
+                    references.merge(BlobStore.keyOf(ref), 1, Integer::sum);
+                }
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<String, Integer> reference : references.entrySet()) {
+            long size = blobSize(reference.getKey());
+            blobRefRepository.acquire(reference.getKey(), size, reference.getValue(), now);
+        }
+
+        User owner = entityManager.getReference(User.class, userId);
+        for (int i = 0; i < batch.size(); i++) {
+            Post post = batch.get(i).post();
+            post.setUser(owner);
+            entityManager.persist(post);
+            if ((i + 1) % flushInterval == 0) {
+                entityManager.flush();
+                entityManager.clear();
+                owner = entityManager.getReference(User.class, userId);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        changeVersionService.markChanged(userId, ChangeVersionService.Scope.POSTS);
+    }
+
+    private long blobSize(String key) {
+        try {
+            Optional<BlobInfo> blob = blobStore.stat(key);
+            if (blob.isEmpty()) {
+                throw new IllegalStateException("Blob " + key + " disappeared during the import");
+            }
+            return blob.get().size();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read blob " + key, e);
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private record PendingPost(long line, Post post) {
+    }
+
+    private final class Report {
+        private long imported;
+        private long failed;
+        private final List<ImportReport.LineError> errors = new ArrayList<>();
+
+        private void fail(long line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportReport.LineError(line, message));
+            }
+        }
+
+        private ImportReport toResponse() {
+            return new ImportReport(imported, failed, errors, failed > errors.size());
+        }
+    }
+
+    // Reads lines without ever holding more than MAX_LINE_CHARS of one; longer lines are
+    // skipped to their end and flagged as truncated
+    private static final class LineReader {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private long lineNumber;
+        private boolean truncated;
+
+        private LineReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        private String next() throws IOException {
+            line.setLength(0);
+            truncated = false;
+            boolean sawAny = false;
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        if (!sawAny) {
+                            return null;
+                        }
+                        break;
+                    }
+                }
+                sawAny = true;
+                char c = buffer[position++];
+                if (c == '\n') {
+                    break;
+                }
+                if (line.length() < MAX_LINE_CHARS) {
+                    line.append(c);
+                } else {
+                    truncated = true;
+                }
+            }
+            lineNumber++;
+            int end = line.length();
+            if (end > 0 && line.charAt(end - 1) == '\r') {
+                line.setLength(end - 1);
+            }
+            return line.toString();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.securemydocs.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.securemydocs.model.Post;
+import com.securemydocs.repository.BlobRefRepository;
+import com.securemydocs.repository.OTPRepository;
+import com.securemydocs.repository.PostRepository;
+import com.securemydocs.repository.ShareableLinkRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// Finishes what deletePost starts: for each tombstoned post, oldest first, removes its
+// OTPs and share links in short transactions of at most batch-size rows, then releases
+// its blob references and deletes the row. A post with a long history is worked off
+// over several small transactions instead of one long one holding locks.
+@Component
+public class PostPurgeWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostPurgeWorker.class);
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private OTPRepository otpRepository;
+
+    @Autowired
+    private ShareableLinkRepository shareableLinkRepository;
+
+    @Autowired
+    private BlobRefRepository blobRefRepository;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.posts.purge.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.posts.purge.posts-per-run:100}")
+    private int postsPerRun;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.posts.purge.interval-ms:60000}")
+    public void purge() {
+        int purged = 0;
+        for (Long postId : postRepository.findDeletedIds(PageRequest.of(0, postsPerRun))) {
+            try {
+                if (purge(postId)) {
+                    purged++;
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to purge deleted post {}", postId, e);
+            }
+        }
+
+        if (purged > 0) {
+            logger.info("Purged {} deleted post(s)", purged);
+        }
+    }
+
+    private boolean purge(Long postId) {
+        deleteInBatches(postId, otpRepository::findIdsByPostId, otpRepository::deleteByIdIn);
+        deleteInBatches(postId, shareableLinkRepository::findIdsByPostId, shareableLinkRepository::deleteByIdIn);
+
+        return transactionTemplate.execute(status -> {
+            // Locked, so a second node working on the same post waits and then finds it gone
+            Optional<Post> found = postRepository.lockDeleted(postId);
+            if (found.isEmpty()) {
+                return false;
+            }
+            Post post = found.get();
+            postRepository.delete(post);
+            releaseBlobs(post);
+            return true;
+        });
+    }
+
+    private void deleteInBatches(Long postId, IdPage page, Function<List<Long>, Integer> delete) {
+        while (true) {
+            Integer deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = page.find(postId, PageRequest.of(0, batchSize));
+                return ids.isEmpty() ? 0 : delete.apply(ids);
+            });
+            if (deleted < batchSize) {
+                return;
+            }
+        }
+    }
+
+    // Drops the post's references to its stored files. Bytes are only removed by
+    // BlobGarbageCollector once nothing references them any more, since other posts
+    // may share the same content.
+    private void releaseBlobs(Post post) {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> keys = Stream.of(post.getDocument(), post.getImage(), post.getVideo(), post.getThumbnail())
+                .filter(BlobStore::isRef)
+                .map(BlobStore::keyOf)
+                .filter(key -> blobRefRepository.release(key, now) == 0 && isUncounted(key))
+                .toList();
+        deleteUncountedBlobsAfterCommit(post, keys);
+    }
+
+    // Only a legacy key without a row is the post's own file. A content key whose count is
+    // already zero, or that has no row, is never deleted here: that is the collector's
+    // call once nothing references it.
+    private boolean isUncounted(String key) {
+        return BlobStore.isLegacyKey(key) && !blobRefRepository.existsById(key);
+    }
+
+    // Blobs stored before reference counting have no blob_refs row and belong to this
+    // post alone; they are removed once the row is gone for good
+    private void deleteUncountedBlobsAfterCommit(Post post, List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (String key : keys) {
+                    try {
+                        blobStore.delete(key);
+                    } catch (Exception e) {
+                        logger.warn("Failed to delete blob {} of post {}", key, post.getId(), e);
+                    }
+                }
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface IdPage {
+        List<Long> find(Long postId, PageRequest page);
+    }
+}
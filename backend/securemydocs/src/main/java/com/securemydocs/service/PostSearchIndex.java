@@ -0,0 +1,489 @@
+package com.securemydocs.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.securemydocs.model.Post;
+import com.securemydocs.repository.PostRepository;
+import com.securemydocs.repository.UserVersionRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// In-memory inverted index over post captions and file names, one partition per user.
+// A partition is built from a single column projection the first time its user searches
+// and is then kept current by PostServiceImplementation after each commit; partitions
+// of users who haven't searched for a while are dropped and rebuilt on demand.
+//
+// Each partition remembers the user's posts version (user_versions) it reflects. A local
+// update advances it only when its transaction committed the very next version; every
+// search reads the current version first and rebuilds a partition that is behind, so
+// changes made on other nodes, or by writers that do not update the index, are picked up.
+//
+// Every query word matches indexed terms starting with it (sorted term dictionary), all
+// words must match, and hits are ranked by field weight x idf, exact terms above prefixes.
+// A word that prefixes more than MAX_PREFIX_EXPANSIONS terms ("a", "2") is not expanded;
+// it is checked last, against the terms of the posts the other words left, or of every
+// post when it is the only kind of word in the query, so no match is dropped.
+@Component
+public class PostSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostSearchIndex.class);
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int MAX_TERM_LENGTH = 64;
+    private static final int MAX_PREFIX_EXPANSIONS = 256;
+    private static final float NAME_WEIGHT = 2.0f;
+    private static final float CAPTION_WEIGHT = 1.0f;
+    private static final float PREFIX_FACTOR = 0.5f;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserVersionRepository userVersionRepository;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @Value("${app.search.max-indexed-users:500}")
+    private int maxIndexedUsers;
+
+    private final Map<Long, UserIndex> indexes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        // Only users with a partition here need their committed version looked up
+        changeVersionService.trackPostsVersions(indexes::containsKey);
+    }
+
+    // Post ids ranked best first
+    public List<Long> search(Long userId, String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        UserIndex index = getOrBuild(userId, userVersionRepository.findPostsVersion(userId).orElse(0L));
+        index.lock.readLock().lock();
+        try {
+            return index.search(words, limit);
+        } finally {
+            index.lock.readLock().unlock();
+        }
+    }
+
+    // Indexes the post, replacing whatever was indexed for it before. Called after the
+    // transaction that changed the post has committed.
+    public void upsert(Long userId, Post post) {
+        UserIndex index = indexes.get(userId);
+        if (index == null) {
+            return; // built from the database when this user next searches
+        }
+        Map<String, Float> terms = termsOf(post.getCaptions(), post.getDocumentName(), post.getImageName(), post.getVideoName());
+        OptionalLong committed = changeVersionService.committedPostsVersion(userId);
+        index.lock.writeLock().lock();
+        try {
+            index.markTouched(post.getId());
+            index.remove(post.getId());
+            index.add(post.getId(), terms);
+            index.advance(committed);
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long userId, Long postId) {
+        UserIndex index = indexes.get(userId);
+        if (index == null) {
+            return;
+        }
+        OptionalLong committed = changeVersionService.committedPostsVersion(userId);
+        index.lock.writeLock().lock();
+        try {
+            index.markTouched(postId);
+            index.remove(postId);
+            index.advance(committed);
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+    }
+
+    public int indexedUserCount() {
+        return indexes.size();
+    }
+
+    // version was read before anything else, so a partition built now reflects at least it
+    private UserIndex getOrBuild(Long userId, long version) {
+        UserIndex index = indexes.computeIfAbsent(userId, id -> new UserIndex());
+        if (index.ready && index.version < version) {
+            // Changed where this node's updates did not reach; replace rather than patch
+            UserIndex fresh = new UserIndex();
+            index = indexes.replace(userId, index, fresh) ? fresh : indexes.computeIfAbsent(userId, id -> new UserIndex());
+        }
+        index.lastUsed = System.nanoTime();
+        if (!index.ready) {
+            synchronized (index) {
+                if (!index.ready) {
+                    build(userId, index, version);
+                }
+            }
+            evictIfNeeded();
+        }
+        return index;
+    }
+
+    // Updates that commit while the rows are being read are applied directly to the
+    // partition and marked as touched, so the (possibly older) loaded row is skipped
+    private void build(Long userId, UserIndex index, long version) {
+        long start = System.nanoTime();
+        index.lock.writeLock().lock();
+        try {
+            index.version = Math.max(index.version, version);
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+        List<Object[]> rows = postRepository.findSearchFieldsByUserId(userId);
+        List<Map<String, Float>> terms = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            terms.add(termsOf((String) row[1], (String) row[2], (String) row[3], (String) row[4]));
+        }
+
+        index.lock.writeLock().lock();
+        try {
+            for (int i = 0; i < rows.size(); i++) {
+                Long postId = (Long) rows.get(i)[0];
+                if (!index.touched.contains(postId)) {
+                    index.add(postId, terms.get(i));
+                }
+            }
+            index.touched = null;
+            index.ready = true;
+        } finally {
+            index.lock.writeLock().unlock();
+        }
+        logger.info("Built search index for user {}: {} posts, {} terms in {} ms",
+                userId, rows.size(), index.postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Drops the least recently searched partitions; they are rebuilt if needed again
+    private void evictIfNeeded() {
+        while (indexes.size() > maxIndexedUsers) {
+            Optional<Map.Entry<Long, UserIndex>> oldest = indexes.entrySet().stream()
+                    .filter(entry -> entry.getValue().ready)
+                    .min(Comparator.comparingLong(entry -> entry.getValue().lastUsed));
+            if (oldest.isEmpty()) {
+                return;
+            }
+            indexes.remove(oldest.get().getKey(), oldest.get().getValue());
+        }
+    }
+
+    private static Map<String, Float> termsOf(String captions, String... names) {
+        Map<String, Float> terms = new HashMap<>();
+        for (String word : tokenize(captions)) {
+            terms.merge(word, CAPTION_WEIGHT, Float::sum);
+        }
+        for (String name : names) {
+            for (String word : tokenize(name)) {
+                terms.merge(word, NAME_WEIGHT, Float::sum);
+            }
+        }
+        return terms;
+    }
+
+    // Lower-cased, accent-folded runs of letters and digits: "Résumé_v2.PDF" -> resume, v2, pdf
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        // Most names are plain ASCII; only pay for Unicode normalization when needed
+        String folded = isAscii(text) ? text : MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("");
+        String lower = folded.toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start <= MAX_TERM_LENGTH) {
+                    words.add(lower.substring(start, i));
+                }
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Each indexed post gets a dense ordinal so postings are plain int arrays and a query
+    // can score into a float[] instead of boxing every candidate into a map
+    private static final class UserIndex {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final NavigableMap<String, Postings> postings = new TreeMap<>();
+        private final Map<Long, Integer> ordinalByPost = new HashMap<>();
+        private final Map<Long, String[]> termsByPost = new HashMap<>();
+        private long[] postByOrdinal = new long[16];
+        private int ordinalCount;
+        private int[] freeOrdinals = new int[16];
+        private int freeCount;
+        private Set<Long> touched = new HashSet<>();
+        private volatile boolean ready;
+        private volatile long lastUsed = System.nanoTime();
+        // Posts version this partition reflects; -1 until a build has read it
+        private volatile long version = -1;
+
+        private void markTouched(Long postId) {
+            if (touched != null) {
+                touched.add(postId);
+            }
+        }
+
+        // A committed version right after ours means the change just applied is the only one
+        // in between; anything else leaves the partition behind, to be rebuilt by a search
+        private void advance(OptionalLong committed) {
+            if (committed.isPresent() && committed.getAsLong() == version + 1) {
+                version = committed.getAsLong();
+            }
+        }
+
+        private void add(long postId, Map<String, Float> terms) {
+            if (terms.isEmpty()) {
+                return;
+            }
+            int ordinal;
+            if (freeCount > 0) {
+                ordinal = freeOrdinals[--freeCount];
+            } else {
+                if (ordinalCount == postByOrdinal.length) {
+                    postByOrdinal = Arrays.copyOf(postByOrdinal, ordinalCount * 2);
+                }
+                ordinal = ordinalCount++;
+            }
+            postByOrdinal[ordinal] = postId;
+            ordinalByPost.put(postId, ordinal);
+            for (Map.Entry<String, Float> term : terms.entrySet()) {
+                postings.computeIfAbsent(term.getKey(), key -> new Postings()).put(ordinal, term.getValue());
+            }
+            termsByPost.put(postId, terms.keySet().toArray(new String[0]));
+        }
+
+        private void remove(long postId) {
+            String[] terms = termsByPost.remove(postId);
+            Integer ordinal = ordinalByPost.remove(postId);
+            if (terms == null || ordinal == null) {
+                return;
+            }
+            for (String term : terms) {
+                Postings docs = postings.get(term);
+                if (docs != null && docs.remove(ordinal) && docs.size == 0) {
+                    postings.remove(term);
+                }
+            }
+            if (freeCount == freeOrdinals.length) {
+                freeOrdinals = Arrays.copyOf(freeOrdinals, freeCount * 2);
+            }
+            freeOrdinals[freeCount++] = ordinal;
+        }
+
+        private List<Long> search(List<String> words, int limit) {
+            int documentCount = Math.max(1, termsByPost.size());
+
+            // Expand each word to the indexed terms it prefixes, then intersect starting
+            // from the word with the fewest postings so later words touch few candidates.
+            // A word with too many expansions is left null and sorted last, to be scanned.
+            List<List<Map.Entry<String, Postings>>> expanded = new ArrayList<>(words.size());
+            long[] totals = new long[words.size()];
+            for (int w = 0; w < words.size(); w++) {
+                List<Map.Entry<String, Postings>> terms = new ArrayList<>();
+                for (Map.Entry<String, Postings> term : postings.tailMap(words.get(w), true).entrySet()) {
+                    if (!term.getKey().startsWith(words.get(w))) {
+                        break;
+                    }
+                    if (terms.size() == MAX_PREFIX_EXPANSIONS) {
+                        terms = null;
+                        totals[w] = Long.MAX_VALUE;
+                        break;
+                    }
+                    terms.add(term);
+                    totals[w] += term.getValue().size;
+                }
+                if (terms != null && terms.isEmpty()) {
+                    return List.of();
+                }
+                expanded.add(terms);
+            }
+            Integer[] order = new Integer[words.size()];
+            for (int w = 0; w < order.length; w++) {
+                order[w] = w;
+            }
+            Arrays.sort(order, Comparator.comparingLong(w -> totals[w]));
+
+            // matched[d] counts the words document d has matched so far; a document stays a
+            // candidate only while it has matched every word processed before the current one
+            float[] total = new float[ordinalCount];
+            float[] best = new float[ordinalCount];
+            int[] matched = new int[ordinalCount];
+            int[] hits = new int[ordinalCount];
+            int hitCount = 0;
+
+            for (int round = 0; round < order.length; round++) {
+                int w = order[round];
+                if (expanded.get(w) == null) {
+                    if (round == 0) {
+                        for (int d : ordinalByPost.values()) {
+                            hits[hitCount++] = d;
+                        }
+                    }
+                    hitCount = scan(words.get(w), round, hits, hitCount, total, matched, documentCount);
+                    if (hitCount == 0) {
+                        return List.of();
+                    }
+                    continue;
+                }
+                int wordLength = words.get(w).length();
+                hitCount = 0;
+                for (Map.Entry<String, Postings> term : expanded.get(w)) {
+                    Postings docs = term.getValue();
+                    float factor = factor(term.getKey(), docs, wordLength, documentCount);
+                    for (int i = 0; i < docs.size; i++) {
+                        int d = docs.ordinals[i];
+                        if (matched[d] != round) {
+                            continue;
+                        }
+                        if (best[d] == 0f) {
+                            hits[hitCount++] = d;
+                        }
+                        best[d] = Math.max(best[d], docs.weights[i] * factor);
+                    }
+                }
+                for (int i = 0; i < hitCount; i++) {
+                    int d = hits[i];
+                    total[d] += best[d];
+                    best[d] = 0f;
+                    matched[d] = round + 1;
+                }
+                if (hitCount == 0) {
+                    return List.of();
+                }
+            }
+
+            // Top-k over the survivor ordinals: higher score first, then newer (higher id) post
+            Comparator<Integer> ranking = Comparator.<Integer>comparingDouble(d -> total[d])
+                    .thenComparingLong(d -> postByOrdinal[d]);
+            PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, ranking);
+            for (int i = 0; i < hitCount; i++) {
+                int d = hits[i];
+                if (top.size() < limit) {
+                    top.offer(d);
+                } else if (ranking.compare(d, top.peek()) > 0) {
+                    top.poll();
+                    top.offer(d);
+                }
+            }
+            List<Long> ranked = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                ranked.add(postByOrdinal[top.poll()]);
+            }
+            Collections.reverse(ranked);
+            return ranked;
+        }
+
+        // Matches the candidates in hits[0, hitCount) against their own terms instead of
+        // expanding the word; survivors are moved to the front of hits and counted
+        private int scan(String word, int round, int[] hits, int hitCount, float[] total, int[] matched, int documentCount) {
+            int kept = 0;
+            for (int i = 0; i < hitCount; i++) {
+                int d = hits[i];
+                float best = 0f;
+                for (String term : termsByPost.get(postByOrdinal[d])) {
+                    if (term.startsWith(word)) {
+                        Postings docs = postings.get(term);
+                        best = Math.max(best, docs.weightOf(d) * factor(term, docs, word.length(), documentCount));
+                    }
+                }
+                if (best > 0f) {
+                    total[d] += best;
+                    matched[d] = round + 1;
+                    hits[kept++] = d;
+                }
+            }
+            return kept;
+        }
+
+        private static float factor(String term, Postings docs, int wordLength, int documentCount) {
+            float idf = (float) Math.log(1.0 + (double) documentCount / docs.size);
+            return term.length() == wordLength ? idf : idf * PREFIX_FACTOR;
+        }
+    }
+
+    // Ordinals sorted ascending with their term weights, in parallel primitive arrays
+    private static final class Postings {
+        private int[] ordinals = new int[2];
+        private float[] weights = new float[2];
+        private int size;
+
+        private void put(int ordinal, float weight) {
+            int at = size > 0 && ordinals[size - 1] < ordinal ? -size - 1 : Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (at >= 0) {
+                weights[at] = weight;
+                return;
+            }
+            at = -at - 1;
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(ordinals, at, ordinals, at + 1, size - at);
+            System.arraycopy(weights, at, weights, at + 1, size - at);
+            ordinals[at] = ordinal;
+            weights[at] = weight;
+            size++;
+        }
+
+        private float weightOf(int ordinal) {
+            int at = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            return at < 0 ? 0f : weights[at];
+        }
+
+        private boolean remove(int ordinal) {
+            int at = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(ordinals, at + 1, ordinals, at, size - at - 1);
+            System.arraycopy(weights, at + 1, weights, at, size - at - 1);
+            size--;
+            return true;
+        }
+    }
+}
@@ -2,7 +2,11 @@ package com.securemydocs.service;
 
 import com.securemydocs.exceptions.OTPException;
 import com.securemydocs.exceptions.ResourceNotFoundException;
+import com.securemydocs.exceptions.UnauthorizedAccessException;
 import com.securemydocs.model.Post;
+import com.securemydocs.request.PostListRequest;
+import com.securemydocs.response.PostPage;
+import com.securemydocs.response.PostSummary;
 
 import java.util.List;
 
@@ -11,17 +15,27 @@ import com.securemydocs.exceptions.UserException;
 
 public interface PostService {
 
-    Post createNewPost(Post post, Integer userId) throws UserException;
+    Post createNewPost(Post post, Long userId) throws UserException;
+
+    Post createPostForBlob(BlobInfo blob, String fileName, String contentType, String captions, Long userId) throws UserException;
 
     Post updatePost(Post post) throws ResourceNotFoundException;
 
-    List<Post> findPostByUserId(Integer userId);
+    List<Post> findPostByUserId(Long userId);
+
+    List<PostSummary> findPostSummariesByUserId(Long userId);
+
+    PostPage<PostSummary> findPostPageByUserId(Long userId, PostListRequest request);
+
+    List<PostSummary> searchPosts(Long userId, String query, int limit);
+
+    Post findPostById(Long postId) throws ResourceNotFoundException;
 
-    Post findPostById(Integer postId) throws ResourceNotFoundException;
+    Post findOwnedPost(Long postId, Long userId) throws ResourceNotFoundException, UnauthorizedAccessException;
 
     List<Post> findAllPost();
 
-    void deletePost(Integer postId) throws ResourceNotFoundException;
+    void deletePost(Long postId) throws ResourceNotFoundException;
 
    
 
@@ -1,20 +1,35 @@
 package com.securemydocs.service;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.securemydocs.exceptions.OTPException;
 import com.securemydocs.exceptions.ResourceNotFoundException;
+import com.securemydocs.exceptions.UnauthorizedAccessException;
 import com.securemydocs.exceptions.UserException;
+import com.securemydocs.model.AuditAction;
 import com.securemydocs.model.Post;
 import com.securemydocs.model.User;
-import com.securemydocs.repository.OTPRepository;
+import com.securemydocs.repository.BlobRefRepository;
 import com.securemydocs.repository.PostRepository;
+import com.securemydocs.repository.PostSpecifications;
+import com.securemydocs.request.PostListRequest;
+import com.securemydocs.response.PostPage;
+import com.securemydocs.response.PostSummary;
  
 
 @Service
@@ -23,11 +38,10 @@ public class PostServiceImplementation implements PostService {
 
     private static final Logger logger = LoggerFactory.getLogger(PostServiceImplementation.class);
 
-    @Autowired
-    private PostRepository postRepository;
+    private static final Set<String> FILE_TYPES = Set.of("document", "image", "video");
 
     @Autowired
-    private OTPRepository otpRepository;
+    private PostRepository postRepository;
 
     @Autowired
     private UserService userService;
@@ -38,8 +52,30 @@ public class PostServiceImplementation implements PostService {
     @Autowired
     private AuditLogService auditLogService;
 
+    @Autowired
+    private BlobRefRepository blobRefRepository;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    // Posts created from a client body may only link external URLs. Blob references are
+    // set by the upload paths, which store the bytes and count the reference; accepting
+    // one here would let a client point a post at someone else's file.
     @Override
-    public Post createNewPost(Post post, Integer userId) throws UserException {
+    public Post createNewPost(Post post, Long userId) throws UserException {
+        if (BlobStore.isRef(post.getImage()) || BlobStore.isRef(post.getVideo()) || BlobStore.isRef(post.getDocument())) {
+            throw new IllegalArgumentException("Stored files can only be attached by uploading them");
+        }
+        return insertPost(post, userId);
+    }
+
+    private Post insertPost(Post post, Long userId) throws UserException {
         User user = userService.findUserById(userId);
         Post newPost = new Post();
         newPost.setCaptions(post.getCaptions());
@@ -56,22 +92,63 @@ public class PostServiceImplementation implements PostService {
 
         // Log the creation action - use helper methods
         try {
-            auditLogService.saveLog(
-                    "UPLOAD",
-                    getFileName(savedPost), // Use helper method
-                    user
-            );
+            auditLogService.saveLog(AuditAction.UPLOAD, savedPost, getFileName(savedPost), user);
         } catch (Exception e) {
             logger.warn("Failed to log audit entry for post upload: {}", savedPost.getId(), e);
         }
 
+        // The thumbnail worker reads the post back, so it may only start once the insert is visible
+        if (ThumbnailService.hasPreviewSource(savedPost)) {
+            runAfterCommit(() -> thumbnailService.submit(savedPost.getId()));
+        }
+        changeVersionService.markChanged(userId, ChangeVersionService.Scope.POSTS);
+        runAfterCommit(() -> postSearchIndex.upsert(userId, savedPost));
+
         return savedPost;
     }
 
+    // Side effects outside the database must not run for a transaction that rolls back
+    private static void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Files in the blob store are referenced as blob:<key> in the field matching their type.
+    // Identical content shares one stored copy; the reference is counted in the same
+    // transaction that inserts the post.
+    @Override
+    public Post createPostForBlob(BlobInfo blob, String fileName, String contentType, String captions, Long userId) throws UserException {
+        blobRefRepository.acquire(blob.key(), blob.size(), LocalDateTime.now());
+        String ref = BlobStore.toRef(blob.key());
+        String type = contentType != null ? contentType : "";
+
+        Post post = new Post();
+        post.setCaptions(captions);
+        if (type.startsWith("image/")) {
+            post.setImage(ref);
+            post.setImageName(fileName);
+        } else if (type.startsWith("video/")) {
+            post.setVideo(ref);
+            post.setVideoName(fileName);
+        } else {
+            post.setDocument(ref);
+            post.setDocumentName(fileName);
+        }
+        return insertPost(post, userId);
+    }
+
     @Override
     @Transactional
     public Post updatePost(Post post) throws ResourceNotFoundException {
-        Post existingPost = postRepository.findById(post.getId())
+        Post existingPost = findLivePost(post.getId())
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + post.getId()));
 
         // Only update OTP protection status
@@ -81,48 +158,44 @@ public class PostServiceImplementation implements PostService {
 
         // Log the action - use helper methods
         try {
-            String action = post.isOtpProtected() ? "ENABLE_OTP" : "DISABLE_OTP";
-            auditLogService.saveLog(
-                    action,
-                    getFileName(existingPost), // Use helper method
-                    existingPost.getUser()
-            );
+            AuditAction action = post.isOtpProtected() ? AuditAction.ENABLE_OTP : AuditAction.DISABLE_OTP;
+            auditLogService.saveLog(action, existingPost, getFileName(existingPost), existingPost.getUser());
         } catch (Exception e) {
             logger.warn("Failed to log OTP protection change: {}", existingPost.getId(), e);
         }
 
+        Long ownerId = existingPost.getUser().getId();
+        changeVersionService.markChanged(ownerId, ChangeVersionService.Scope.POSTS);
+        runAfterCommit(() -> postSearchIndex.upsert(ownerId, updatedPost));
+
         return updatedPost;
     }
 
+    // Only tombstones the post, so deleting costs the same however much hangs off it;
+    // PostPurgeWorker removes the OTPs, share links, blob references and the row later
     @Override
-    public void deletePost(Integer postId) throws ResourceNotFoundException {
-        Post post = postRepository.findById(postId)
+    public void deletePost(Long postId) throws ResourceNotFoundException {
+        Post post = findLivePost(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
 
-        try {
-            otpRepository.deleteByPostId(postId);
-            logger.info("Deleted OTP records for post ID: {}", postId);
-        } catch (Exception e) {
-            logger.warn("Failed to delete OTP records for post ID: {}, proceeding with post deletion", postId, e);
-        }
+        post.setDeletedAt(LocalDateTime.now());
+        postRepository.save(post);
 
         try {
-            auditLogService.saveLog(
-                    "DELETE",
-                    getFileName(post), // Use helper method
-                    post.getUser()
-            );
+            auditLogService.saveLog(AuditAction.DELETE, post, getFileName(post), post.getUser());
         } catch (Exception e) {
             logger.warn("Failed to log audit entry for post deletion: {}", postId, e);
         }
 
-        postRepository.delete(post);
+        Long ownerId = post.getUser().getId();
+        changeVersionService.markChanged(ownerId, ChangeVersionService.Scope.POSTS);
+        runAfterCommit(() -> postSearchIndex.remove(ownerId, postId));
     }
 
     @Override
     @Transactional
     public Post updatePostOtpProtection(Post post, String otpCode) throws ResourceNotFoundException, OTPException {
-        Post existingPost = postRepository.findById(post.getId())
+        Post existingPost = findLivePost(post.getId())
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + post.getId()));
 
         // Validate OTP before allowing the change
@@ -137,16 +210,13 @@ public class PostServiceImplementation implements PostService {
 
         // Log the action - use helper methods
         try {
-            String action = post.isOtpProtected() ? "ENABLE_OTP" : "DISABLE_OTP";
-            auditLogService.saveLog(
-                    action,
-                    getFileName(existingPost), // Use helper method
-                    existingPost.getUser()
-            );
+            AuditAction action = post.isOtpProtected() ? AuditAction.ENABLE_OTP : AuditAction.DISABLE_OTP;
+            auditLogService.saveLog(action, existingPost, getFileName(existingPost), existingPost.getUser());
         } catch (Exception e) {
             logger.warn("Failed to log OTP protection change: {}", existingPost.getId(), e);
         }
 
+        changeVersionService.markChanged(existingPost.getUser().getId(), ChangeVersionService.Scope.POSTS);
         return updatedPost;
     }
 
@@ -165,18 +235,102 @@ public class PostServiceImplementation implements PostService {
     }
 
     @Override
-    public List<Post> findPostByUserId(Integer userId) {
+    public List<Post> findPostByUserId(Long userId) {
         return postRepository.findByUserId(userId);
     }
 
     @Override
-    public Post findPostById(Integer postId) throws ResourceNotFoundException {
-        return postRepository.findById(postId)
+    @Transactional(readOnly = true)
+    public List<PostSummary> findPostSummariesByUserId(Long userId) {
+        return postRepository.findSummariesByUserId(userId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PostPage<PostSummary> findPostPageByUserId(Long userId, PostListRequest request) {
+        boolean ascending = request.isAscending();
+        int limit = request.getEffectiveLimit();
+
+        Specification<Post> spec = PostSpecifications.ownedBy(userId).and(PostSpecifications.notDeleted());
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            PostCursor cursor = PostCursor.decode(request.getCursor());
+            spec = spec.and(PostSpecifications.after(cursor.getCreatedAt(), cursor.getId(), ascending));
+        }
+        if (request.getFileType() != null && !request.getFileType().isBlank()) {
+            String fileType = request.getFileType().toLowerCase();
+            if (!FILE_TYPES.contains(fileType)) {
+                throw new IllegalArgumentException("Unknown file type: " + request.getFileType());
+            }
+            spec = spec.and(PostSpecifications.hasFileType(fileType));
+        }
+        if (request.getNamePrefix() != null && !request.getNamePrefix().isBlank()) {
+            spec = spec.and(PostSpecifications.nameStartsWith(request.getNamePrefix()));
+        }
+        if (request.getOtpProtected() != null) {
+            spec = spec.and(PostSpecifications.otpProtected(request.getOtpProtected()));
+        }
+
+        Sort.Direction direction = ascending ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort sort = Sort.by(direction, "createdAt").and(Sort.by(direction, "id"));
+
+        // Fetch one extra row to learn whether another page exists without a count query
+        List<PostSummary> rows = postRepository.findSummaries(spec, sort, limit + 1);
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            nextCursor = PostCursor.encode(rows.get(limit - 1));
+        }
+        return new PostPage<>(rows, nextCursor);
+    }
+
+    // Ranked by the in-memory index, then loaded in one query and put back in rank order
+    @Override
+    public List<PostSummary> searchPosts(Long userId, String query, int limit) {
+        List<Long> ranked = postSearchIndex.search(userId, query, limit);
+        if (ranked.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, PostSummary> byId = new HashMap<>();
+        for (PostSummary summary : postRepository.findSummariesByUserIdAndIdIn(userId, ranked)) {
+            byId.put(summary.id(), summary);
+        }
+        List<PostSummary> results = new ArrayList<>(ranked.size());
+        for (Long postId : ranked) {
+            PostSummary summary = byId.get(postId);
+            if (summary != null) {
+                results.add(summary);
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public Post findPostById(Long postId) throws ResourceNotFoundException {
+        return findLivePost(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + postId));
     }
 
+    @Override
+    public Post findOwnedPost(Long postId, Long userId) throws ResourceNotFoundException, UnauthorizedAccessException {
+        Optional<Post> post = postRepository.findByIdAndUserId(postId, userId);
+        if (post.isPresent()) {
+            return post.get();
+        }
+        // Only the failure path pays for telling "missing" apart from "not yours"
+        if (postRepository.existsByIdAndDeletedAtIsNull(postId)) {
+            throw new UnauthorizedAccessException("You don't have permission to access this resource");
+        }
+        throw new ResourceNotFoundException("Post not found with id: " + postId);
+    }
+
     @Override
     public List<Post> findAllPost() {
-        return postRepository.findAll();
+        return postRepository.findByDeletedAtIsNull();
+    }
+
+    // By primary key, so the second-level cache still answers; tombstones count as missing
+    private Optional<Post> findLivePost(Long postId) {
+        return postRepository.findById(postId).filter(post -> !post.isDeleted());
     }
 }
\ No newline at end of file
@@ -0,0 +1,701 @@
+package com.securemydocs.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.securemydocs.model.AuditAction;
+import com.securemydocs.model.AuditChainHead;
+import com.securemydocs.repository.AuditChainHeadRepository;
+import com.securemydocs.request.AuditLogListRequest;
+import com.securemydocs.response.AuditLogEntry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// AuditLogStore on append-only, memory-mapped segment files under app.audit.segments.dir
+// (app.audit.store=segments). An append is a few writes into the mapping plus one SHA-256,
+// with no database round trip; the mapping is forced to disk once per batch.
+//
+// Segment file segment-<number>.log, segment-bytes long:
+//   header (64 bytes)  magic "SMDAUDIT", version, segment number, first sequence, and the
+//                      hash of the last record before this segment (zeros for the first)
+//   records            back to back, each padded to 8 bytes; a zero length ends the segment
+// Record (72 bytes + name):
+//   0 length  4 action code  6 name length (-1 for none)  8 sequence (the entry id)
+//   16 user id  24 timestamp (epoch micros)  32 post id (0 for none)
+//   40 SHA-256 over the previous record's hash, bytes 4..40 and the name  72 name (UTF-8)
+// Every record depends on all before it, and each segment names the hash it continues
+// from, so segments are verified independently and in parallel (verify()) and then
+// checked to link up. A new segment is written under a temporary name and renamed once
+// its header is on disk, so a crash never leaves a segment without one.
+// The hashes alone prove nothing to someone able to rewrite the files: the whole chain
+// can be recomputed. Every anchor-interval-ms, and on shutdown, the sequence and hash of
+// the newest record are stored in audit_chain_heads under chain-id, and verify() fails
+// when the chain no longer holds that record, so a rewrite or truncation is caught unless
+// it also reaches the database. Timestamps never go backwards: an entry older than the last one
+// appended is stored with the last one's time, which keeps the files in (timestamp, id)
+// order and lets range reads stop early.
+// Per segment, a sparse index per user keeps every checkpoint-interval-th record's offset
+// and time. A range read starts at the checkpoint before its bound and scans forward,
+// skipping other users' records. The index is rebuilt from the files on start.
+// One node appends to and reads from a directory; this store does not share entries
+// between nodes, and it has no retention (AuditArchiver only handles the table).
+@Service
+@ConditionalOnProperty(name = "app.audit.store", havingValue = "segments")
+public class SegmentAuditLogStore implements AuditLogStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentAuditLogStore.class);
+
+    private static final long MAGIC = 0x534D444155444954L;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int RECORD_HEADER_BYTES = 72;
+    private static final int HASH_BYTES = 32;
+    private static final int MAX_NAME_BYTES = 1024;
+    private static final Pattern SEGMENT_FILE = Pattern.compile("segment-(\\d{16})\\.log");
+    private static final Pattern TEMP_FILE = Pattern.compile("segment-(\\d{16})\\.log\\.tmp");
+
+    public record SegmentReport(long segment, long records, boolean valid, boolean linked, String error) {
+    }
+
+    // anchoredSequence is 0, and matchesAnchor true, while nothing has been anchored
+    public record ChainReport(List<SegmentReport> segments, long anchoredSequence, boolean matchesAnchor) {
+    }
+
+    @Autowired
+    private AuditChainHeadRepository auditChainHeadRepository;
+
+    @Value("${app.audit.segments.dir:./data/audit-segments}")
+    private Path dir;
+
+    @Value("${app.audit.segments.segment-bytes:67108864}")
+    private int segmentBytes;
+
+    @Value("${app.audit.segments.checkpoint-interval:64}")
+    private int checkpointInterval;
+
+    @Value("${app.audit.segments.force-each-batch:true}")
+    private boolean forceEachBatch;
+
+    @Value("${app.audit.segments.chain-id:default}")
+    private String chainId;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+    // Append state, guarded by this
+    private Segment active;
+    private byte[] lastHash = new byte[HASH_BYTES];
+    // Sequence of the record lastHash belongs to, 0 while it is not known
+    private long lastSequence;
+    private long anchoredSequence;
+    private long nextSequence = 1;
+    private long lastMicros = Long.MIN_VALUE;
+    private MessageDigest digest;
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Files.createDirectories(dir);
+        digest = sha256();
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(dir)) {
+            files = listing.filter(file -> SEGMENT_FILE.matcher(file.getFileName().toString()).matches()).sorted().toList();
+        }
+        // Left by a crash while a segment was being created; it holds no records
+        try (Stream<Path> listing = Files.list(dir)) {
+            for (Path file : listing.filter(file -> TEMP_FILE.matcher(file.getFileName().toString()).matches()).toList()) {
+                logger.warn("Removing unfinished audit segment {}", file);
+                Files.delete(file);
+            }
+        }
+        for (int i = 0; i < files.size(); i++) {
+            boolean last = i == files.size() - 1;
+            Segment segment = map(files.get(i), last);
+            segments.add(segment);
+            if (last) {
+                recover(segment);
+            } else {
+                index(segment);
+            }
+        }
+        if (active == null) {
+            active = create(segments.isEmpty() ? 1 : segments.get(segments.size() - 1).number + 1);
+        }
+        logger.info("Audit segment store at {}: {} segments, next sequence {}", dir.toAbsolutePath(), segments.size(), nextSequence);
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (this) {
+            if (active != null) {
+                active.buffer.force();
+            }
+        }
+        try {
+            anchor();
+        } catch (RuntimeException e) {
+            logger.warn("Could not anchor audit chain {} on shutdown", chainId, e);
+        }
+    }
+
+    // Stores the newest record's sequence and hash, unless they are stored already
+    @Scheduled(fixedDelayString = "${app.audit.segments.anchor-interval-ms:10000}")
+    public void anchor() {
+        long sequence;
+        byte[] hash;
+        synchronized (this) {
+            if (lastSequence == 0 || lastSequence == anchoredSequence) {
+                return;
+            }
+            sequence = lastSequence;
+            hash = lastHash.clone();
+        }
+        // Appended records are forced before their hash is anchored, so the anchor never
+        // names a record a crash could take back
+        if (!forceEachBatch) {
+            synchronized (this) {
+                active.buffer.force();
+            }
+        }
+        auditChainHeadRepository.save(new AuditChainHead(chainId, sequence, HexFormat.of().formatHex(hash), LocalDateTime.now()));
+        synchronized (this) {
+            anchoredSequence = Math.max(anchoredSequence, sequence);
+        }
+    }
+
+    @Override
+    public synchronized List<AuditLogEntry> append(List<AuditLogWriter.Entry> entries) {
+        List<AuditLogEntry> written = new ArrayList<>(entries.size());
+        for (AuditLogWriter.Entry entry : entries) {
+            written.add(appendOne(entry));
+        }
+        if (forceEachBatch) {
+            active.buffer.force();
+        }
+        return written;
+    }
+
+    private AuditLogEntry appendOne(AuditLogWriter.Entry entry) {
+        String name = entry.postId() != null ? entry.fileName() : entry.detail();
+        byte[] nameBytes = name == null ? null : truncate(name.getBytes(StandardCharsets.UTF_8));
+        int length = recordLength(nameBytes == null ? -1 : nameBytes.length);
+        if (active.end + length > active.buffer.capacity()) {
+            roll();
+        }
+        long micros = Math.max(toMicros(entry.timestamp()), lastMicros);
+        long sequence = nextSequence++;
+        lastMicros = micros;
+        lastSequence = sequence;
+
+        MappedByteBuffer buffer = active.buffer;
+        int position = active.end;
+        buffer.putShort(position + 4, entry.action().getCode());
+        buffer.putShort(position + 6, (short) (nameBytes == null ? -1 : nameBytes.length));
+        buffer.putLong(position + 8, sequence);
+        buffer.putLong(position + 16, entry.userId());
+        buffer.putLong(position + 24, micros);
+        buffer.putLong(position + 32, entry.postId() != null ? entry.postId() : 0L);
+        if (nameBytes != null) {
+            buffer.put(position + RECORD_HEADER_BYTES, nameBytes);
+        }
+        lastHash = hash(digest, lastHash, buffer, position);
+        buffer.put(position + 40, lastHash);
+        // Written last: a scan stops at a zero length, so a half-written record is never read
+        buffer.putInt(position, length);
+
+        active.add(entry.userId(), position, micros, length, checkpointInterval);
+        String shown = nameBytes == null ? null : new String(nameBytes, StandardCharsets.UTF_8);
+        return new AuditLogEntry(sequence, entry.action(), shown, fromMicros(micros));
+    }
+
+    private void roll() {
+        active.buffer.force();
+        try {
+            active = create(active.number + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start audit segment " + (active.number + 1), e);
+        }
+    }
+
+    private Segment create(long number) throws IOException {
+        Path file = dir.resolve(String.format("segment-%016d.log", number));
+        if (Files.exists(file)) {
+            throw new FileAlreadyExistsException(file.toString());
+        }
+        Path temp = dir.resolve(file.getFileName() + ".tmp");
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        buffer.putLong(0, MAGIC);
+        buffer.putInt(8, VERSION);
+        buffer.putLong(16, number);
+        buffer.putLong(24, nextSequence);
+        buffer.put(32, lastHash);
+        buffer.force();
+        // The mapping follows the file to its new name
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        Segment segment = new Segment(number, buffer);
+        segments.add(segment);
+        return segment;
+    }
+
+    private static Segment map(Path file, boolean writable) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = writable
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_BYTES || buffer.getLong(0) != MAGIC || buffer.getInt(8) != VERSION) {
+            throw new IOException(file + " is not an audit segment");
+        }
+        return new Segment(buffer.getLong(16), buffer);
+    }
+
+    // Sealed segments are only indexed; verify() checks their hashes
+    private void index(Segment segment) {
+        int position = HEADER_BYTES;
+        int length;
+        while ((length = validLength(segment.buffer, position)) > 0) {
+            segment.add(segment.buffer.getLong(position + 16), position, segment.buffer.getLong(position + 24), length,
+                    checkpointInterval);
+            position += length;
+        }
+    }
+
+    // The last segment is checked record by record to find where appending resumes. A
+    // record that does not match its hash, a torn write or an edit, is left in place for
+    // verify() to report, and appending continues in a new segment.
+    private void recover(Segment segment) throws IOException {
+        MappedByteBuffer buffer = segment.buffer;
+        byte[] hash = new byte[HASH_BYTES];
+        buffer.get(32, hash);
+        long sequence = buffer.getLong(24);
+        long hashSequence = 0;
+        long micros = Long.MIN_VALUE;
+        int position = HEADER_BYTES;
+        int length;
+        boolean broken = false;
+        while ((length = validLength(buffer, position)) > 0) {
+            byte[] expected = hash(digest, hash, buffer, position);
+            byte[] stored = new byte[HASH_BYTES];
+            buffer.get(position + 40, stored);
+            if (!MessageDigest.isEqual(expected, stored)) {
+                broken = true;
+                break;
+            }
+            hash = expected;
+            hashSequence = buffer.getLong(position + 8);
+            sequence = hashSequence + 1;
+            micros = buffer.getLong(position + 24);
+            segment.add(buffer.getLong(position + 16), position, micros, length, checkpointInterval);
+            position += length;
+        }
+        if (!broken && length < 0) {
+            broken = true;
+        }
+        // Records past a broken one are not read back, but their ids stay taken
+        for (int rest = position; broken && (length = validLength(buffer, rest)) > 0; rest += length) {
+            sequence = Math.max(sequence, buffer.getLong(rest + 8) + 1);
+        }
+        lastHash = hash;
+        // Without a record here the seed's sequence is not known, and nothing new needs anchoring
+        lastSequence = hashSequence;
+        nextSequence = sequence;
+        lastMicros = micros;
+        if (broken) {
+            logger.error("Audit segment {} has an invalid record at offset {}; appending continues in a new segment",
+                    segment.number, position);
+            active = create(segment.number + 1);
+        } else {
+            active = segment;
+        }
+    }
+
+    @Override
+    public List<AuditLogEntry> find(Long userId, AuditLogListRequest request, PostCursor cursor, int max) {
+        Short action = null;
+        if (request.getActionFilter() != null) {
+            Optional<AuditAction> known = AuditAction.find(request.getActionFilter());
+            if (known.isEmpty()) {
+                return List.of();
+            }
+            action = known.get().getCode();
+        }
+        Bounds bounds = new Bounds(
+                request.getFrom() != null ? toMicros(request.getFrom()) : Long.MIN_VALUE,
+                request.getTo() != null ? toMicros(request.getTo()) : Long.MAX_VALUE,
+                action,
+                cursor != null ? toMicros(cursor.getCreatedAt()) : null,
+                cursor != null ? cursor.getId() : null,
+                request.isAscending());
+
+        List<AuditLogEntry> rows = new ArrayList<>();
+        List<Segment> ordered = new ArrayList<>(segments);
+        if (!bounds.ascending()) {
+            Collections.reverse(ordered);
+        }
+        for (Segment segment : ordered) {
+            if (read(segment, userId, bounds, max, rows)) {
+                break;
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public List<AuditLogEntry> findNewestFirst(Long userId) {
+        return find(userId, new AuditLogListRequest(), null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Stream<AuditLogEntry> streamOldestFirst(Long userId) {
+        Bounds bounds = new Bounds(Long.MIN_VALUE, Long.MAX_VALUE, null, null, null, true);
+        return List.copyOf(segments).stream().flatMap(segment -> {
+            List<AuditLogEntry> rows = new ArrayList<>();
+            read(segment, userId, bounds, Integer.MAX_VALUE, rows);
+            return rows.stream();
+        });
+    }
+
+    // Adds the segment's matching records to rows in the requested order. Returns true
+    // when nothing after this segment can match or rows has reached max.
+    private boolean read(Segment segment, Long userId, Bounds bounds, int max, List<AuditLogEntry> rows) {
+        Span span = segment.snapshot(userId);
+        if (span == null) {
+            return false;
+        }
+        long low = bounds.cursorMicros() != null && bounds.ascending() ? Math.max(bounds.from(), bounds.cursorMicros()) : bounds.from();
+        long high = bounds.cursorMicros() != null && !bounds.ascending() ? bounds.cursorMicros() : bounds.to() - 1;
+        if (bounds.ascending() ? span.firstMicros() > high : span.lastMicros() < low) {
+            return true;
+        }
+        if (span.lastMicros() < low || span.firstMicros() > high) {
+            return false;
+        }
+
+        if (bounds.ascending()) {
+            // Strictly before: records sharing low's time may start in an earlier window
+            for (int i = Math.max(0, lastCheckpointBefore(span, low, false)); i < span.checkpoints(); i++) {
+                List<AuditLogEntry> window = new ArrayList<>();
+                boolean past = scan(segment, span, i, userId, bounds, window);
+                for (AuditLogEntry entry : window) {
+                    rows.add(entry);
+                    if (rows.size() >= max) {
+                        return true;
+                    }
+                }
+                if (past) {
+                    return true;
+                }
+            }
+        } else {
+            for (int i = lastCheckpointBefore(span, high, true); i >= 0; i--) {
+                List<AuditLogEntry> window = new ArrayList<>();
+                scan(segment, span, i, userId, bounds, window);
+                for (int j = window.size() - 1; j >= 0; j--) {
+                    rows.add(window.get(j));
+                    if (rows.size() >= max) {
+                        return true;
+                    }
+                }
+                if (span.micros()[i] < low) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Scans one checkpoint window of the user's records in file order. Returns true once a
+    // record at or after the upper bound was seen (ascending reads can stop there).
+    private static boolean scan(Segment segment, Span span, int window, Long userId, Bounds bounds, List<AuditLogEntry> out) {
+        ByteBuffer buffer = segment.buffer;
+        int position = span.offsets()[window];
+        int end = window + 1 < span.checkpoints() ? span.offsets()[window + 1] : span.end();
+        while (position < end) {
+            int length = buffer.getInt(position);
+            if (length <= 0) {
+                break;
+            }
+            if (buffer.getLong(position + 16) == userId) {
+                long micros = buffer.getLong(position + 24);
+                if (micros >= bounds.to()) {
+                    return true;
+                }
+                long sequence = buffer.getLong(position + 8);
+                short code = buffer.getShort(position + 4);
+                if (micros >= bounds.from()
+                        && (bounds.action() == null || bounds.action() == code)
+                        && afterCursor(bounds, micros, sequence)) {
+                    out.add(new AuditLogEntry(sequence, AuditAction.fromCode(code), name(buffer, position), fromMicros(micros)));
+                }
+            }
+            position += length;
+        }
+        return false;
+    }
+
+    private static boolean afterCursor(Bounds bounds, long micros, long sequence) {
+        if (bounds.cursorMicros() == null) {
+            return true;
+        }
+        int order = micros != bounds.cursorMicros() ? Long.compare(micros, bounds.cursorMicros())
+                : Long.compare(sequence, bounds.cursorId());
+        return bounds.ascending() ? order > 0 : order < 0;
+    }
+
+    // Index of the last checkpoint earlier than (or, inclusive, at) micros; -1 for none
+    private static int lastCheckpointBefore(Span span, long micros, boolean inclusive) {
+        int low = 0;
+        int high = span.checkpoints() - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (span.micros()[middle] < micros || (inclusive && span.micros()[middle] == micros)) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    // Recomputes every segment's chain from the hash its header names, in parallel, then
+    // checks that each segment continues from where the one before it ended and that the
+    // anchored record is still there with its hash. The anchor is read first, so its
+    // record was appended before the segments are looked at.
+    public ChainReport verify() {
+        Optional<AuditChainHead> head = auditChainHeadRepository.findById(chainId);
+        long anchored = head.map(AuditChainHead::getSequence).orElse(0L);
+        List<Segment> all = List.copyOf(segments);
+        Segment current;
+        synchronized (this) {
+            current = active;
+        }
+        List<Verified> results = all.parallelStream().map(segment -> verify(segment, segment == current, anchored)).toList();
+        List<SegmentReport> reports = new ArrayList<>(results.size());
+        byte[] anchoredHash = null;
+        for (int i = 0; i < results.size(); i++) {
+            Verified result = results.get(i);
+            boolean linked = i == 0
+                    ? Arrays.equals(result.seed(), new byte[HASH_BYTES])
+                    : results.get(i - 1).valid() && Arrays.equals(result.seed(), results.get(i - 1).lastHash());
+            reports.add(new SegmentReport(all.get(i).number, result.records(), result.valid(), linked, result.error()));
+            if (result.anchoredHash() != null) {
+                anchoredHash = result.anchoredHash();
+            }
+        }
+        boolean matches = head.isEmpty()
+                || (anchoredHash != null && HexFormat.of().formatHex(anchoredHash).equals(head.get().getHash()));
+        return new ChainReport(reports, anchored, matches);
+    }
+
+    // Sealed segments are read to their first empty slot rather than to the end recorded on
+    // start, so records after a broken one are reported too
+    private static Verified verify(Segment segment, boolean active, long anchoredSequence) {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = segment.buffer;
+        byte[] seed = new byte[HASH_BYTES];
+        buffer.get(32, seed);
+        byte[] previous = seed;
+        int end = active ? segment.end : buffer.capacity();
+        int position = HEADER_BYTES;
+        long records = 0;
+        byte[] anchoredHash = null;
+        while (position < end) {
+            int length = validLength(buffer, position);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0) {
+                return new Verified(seed, previous, records, false, "record " + records + " at offset " + position + " is malformed",
+                        anchoredHash);
+            }
+            byte[] expected = hash(digest, previous, buffer, position);
+            byte[] stored = new byte[HASH_BYTES];
+            buffer.get(position + 40, stored);
+            if (!MessageDigest.isEqual(expected, stored)) {
+                return new Verified(seed, previous, records, false, "record " + records + " at offset " + position
+                        + " does not match its hash " + HexFormat.of().formatHex(stored), anchoredHash);
+            }
+            if (buffer.getLong(position + 8) == anchoredSequence) {
+                anchoredHash = expected;
+            }
+            previous = expected;
+            records++;
+            position += length;
+        }
+        return new Verified(seed, previous, records, true, null, anchoredHash);
+    }
+
+    private static byte[] hash(MessageDigest digest, byte[] previous, ByteBuffer buffer, int position) {
+        int nameLength = buffer.getShort(position + 6);
+        digest.update(previous);
+        digest.update(buffer.slice(position + 4, 36));
+        if (nameLength > 0) {
+            digest.update(buffer.slice(position + RECORD_HEADER_BYTES, nameLength));
+        }
+        return digest.digest();
+    }
+
+    // Length of the record at position if its header is consistent, 0 at the end of the
+    // segment, -1 for a record that cannot be read
+    private static int validLength(ByteBuffer buffer, int position) {
+        if (position + RECORD_HEADER_BYTES > buffer.capacity()) {
+            return 0;
+        }
+        int length = buffer.getInt(position);
+        if (length == 0) {
+            return 0;
+        }
+        short nameLength = buffer.getShort(position + 6);
+        if (nameLength < -1 || nameLength > MAX_NAME_BYTES || length != recordLength(nameLength)
+                || position + length > buffer.capacity()) {
+            return -1;
+        }
+        return length;
+    }
+
+    private static String name(ByteBuffer buffer, int position) {
+        int nameLength = buffer.getShort(position + 6);
+        if (nameLength < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[nameLength];
+        buffer.get(position + RECORD_HEADER_BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int recordLength(int nameLength) {
+        return (RECORD_HEADER_BYTES + Math.max(0, nameLength) + 7) & ~7;
+    }
+
+    // Cuts at a character boundary
+    private static byte[] truncate(byte[] bytes) {
+        if (bytes.length <= MAX_NAME_BYTES) {
+            return bytes;
+        }
+        int end = MAX_NAME_BYTES;
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) {
+            end--;
+        }
+        return Arrays.copyOf(bytes, end);
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Bounds(long from, long to, Short action, Long cursorMicros, Long cursorId, boolean ascending) {
+    }
+
+    // anchoredHash is the recomputed hash of the anchored record when this segment holds it
+    private record Verified(byte[] seed, byte[] lastHash, long records, boolean valid, String error, byte[] anchoredHash) {
+    }
+
+    // A user's records in one segment: first and last time, and the offset and time of
+    // every checkpoint-interval-th record starting with the first
+    private record Span(long firstMicros, long lastMicros, int[] offsets, long[] micros, int checkpoints, int end) {
+    }
+
+    private static final class Segment {
+        private final long number;
+        private final MappedByteBuffer buffer;
+        // Bytes in use; records below it are complete and never change
+        private volatile int end = HEADER_BYTES;
+        private final Map<Long, UserIndex> users = new HashMap<>();
+
+        private Segment(long number, MappedByteBuffer buffer) {
+            this.number = number;
+            this.buffer = buffer;
+        }
+
+        private synchronized void add(long userId, int position, long micros, int length, int interval) {
+            users.computeIfAbsent(userId, id -> new UserIndex()).add(position, micros, interval);
+            end = position + length;
+        }
+
+        private synchronized Span snapshot(long userId) {
+            UserIndex index = users.get(userId);
+            if (index == null) {
+                return null;
+            }
+            return new Span(index.firstMicros, index.lastMicros, Arrays.copyOf(index.offsets, index.checkpoints),
+                    Arrays.copyOf(index.micros, index.checkpoints), index.checkpoints, end);
+        }
+    }
+
+    private static final class UserIndex {
+        private long firstMicros;
+        private long lastMicros;
+        private long count;
+        private int[] offsets = new int[4];
+        private long[] micros = new long[4];
+        private int checkpoints;
+
+        private void add(int position, long recordMicros, int interval) {
+            if (count == 0) {
+                firstMicros = recordMicros;
+            }
+            lastMicros = recordMicros;
+            if (count % interval == 0) {
+                if (checkpoints == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, checkpoints * 2);
+                    micros = Arrays.copyOf(micros, checkpoints * 2);
+                }
+                offsets[checkpoints] = position;
+                micros[checkpoints] = recordMicros;
+                checkpoints++;
+            }
+            count++;
+        }
+    }
+}
@@ -12,8 +12,14 @@ public interface ShareableLinkService {
 
     ShareableLink getValidLinkByToken(String token) throws ResourceNotFoundException;
 
+    ShareableLink getLinkByToken(String token) throws ResourceNotFoundException;
+
     String generateShareUrl(String token);
 
     void deactivateLink(Long linkId) throws ResourceNotFoundException;
+
+    // False when the link is used up, expired or deactivated meanwhile
+    boolean recordUse(ShareableLink link);
+
     ShareableLink save(ShareableLink link);
 }
@@ -28,8 +28,7 @@ public class ShareableLinkServiceImpl implements ShareableLinkService {
 
     @Override
     public ShareableLink getValidLinkByToken(String token) throws ResourceNotFoundException {
-        ShareableLink link = shareableLinkRepository.findByToken(token)
-                .orElseThrow(() -> new ResourceNotFoundException("Link not found"));
+        ShareableLink link = getLinkByToken(token);
 
         if (!link.isValid()) {
             throw new ResourceNotFoundException("Link expired or invalid");
@@ -38,6 +37,18 @@ public class ShareableLinkServiceImpl implements ShareableLinkService {
         return link;
     }
 
+    @Override
+    public ShareableLink getLinkByToken(String token) throws ResourceNotFoundException {
+        ShareableLink link = shareableLinkRepository.findByToken(token)
+                .orElseThrow(() -> new ResourceNotFoundException("Link not found"));
+
+        // Links of a deleted post stay in the table until PostPurgeWorker gets to them
+        if (link.getPost().isDeleted()) {
+            throw new ResourceNotFoundException("Link not found");
+        }
+        return link;
+    }
+
     @Override
     public String generateShareUrl(String token) {
         return frontendBaseUrl + "/shared/" + token; // Frontend will handle this route
@@ -51,6 +62,15 @@ public class ShareableLinkServiceImpl implements ShareableLinkService {
         shareableLinkRepository.save(link);
     }
 
+    @Override
+    public boolean recordUse(ShareableLink link) {
+        if (shareableLinkRepository.recordUse(link.getId(), LocalDateTime.now()) == 0) {
+            return false;
+        }
+        link.setUseCount(link.getUseCount() + 1);
+        return true;
+    }
+
     @Override
     public ShareableLink save(ShareableLink link) {
         return shareableLinkRepository.save(link);
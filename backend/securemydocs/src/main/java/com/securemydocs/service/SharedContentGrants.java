@@ -0,0 +1,89 @@
+package com.securemydocs.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.stereotype.Component;
+
+import com.securemydocs.config.JwtKeyring;
+import com.securemydocs.config.JwtProvider;
+import com.securemydocs.model.ShareableLink;
+
+// Short-lived grants handed out by a successful /view on a share link. The grant lets the
+// viewer's browser issue the many range and revalidation requests a video or PDF player
+// makes against /content without re-entering the OTP or using up the link's maxUses.
+// A grant is self-contained: "<expiry millis>.<key id>.<HMAC-SHA256 of the share token and
+// expiry>", signed with the JWT keyring all nodes share, so whichever node serves /content
+// can check a grant another node issued. Deactivating the link still cuts it off, since
+// /content checks the link on every request.
+@Component
+public class SharedContentGrants {
+
+    private static final long TTL_MILLIS = 60 * 60 * 1000;
+    // Keeps a grant from ever being mistaken for a MAC over anything else signed with these keys
+    private static final String PURPOSE = "share-content-grant|";
+
+    public String issue(ShareableLink link) {
+        long now = System.currentTimeMillis();
+        long linkExpiry = link.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long expiresAt = Math.min(now + TTL_MILLIS, linkExpiry);
+
+        JwtKeyring keyring = JwtProvider.getKeyring();
+        String kid = keyring.getSigningKid();
+        return expiresAt + "." + encode(kid.getBytes(StandardCharsets.UTF_8)) + "."
+                + encode(mac(keyring.getSigningKey(), link.getToken(), expiresAt));
+    }
+
+    // True when the grant was issued for this share token and has not expired
+    public boolean isValid(String grant, String linkToken) {
+        if (grant == null || linkToken == null) {
+            return false;
+        }
+        String[] parts = grant.split("\\.", -1);
+        if (parts.length != 3) {
+            return false;
+        }
+        try {
+            long expiresAt = Long.parseLong(parts[0]);
+            if (expiresAt <= System.currentTimeMillis()) {
+                return false;
+            }
+            SecretKey key = JwtProvider.getKeyring().getKey(new String(decode(parts[1]), StandardCharsets.UTF_8));
+            return key != null && MessageDigest.isEqual(decode(parts[2]), mac(key, linkToken, expiresAt));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // A link is still usable for content while it is active and unexpired; the use
+    // count was already charged when the grant was issued
+    public static boolean isLinkOpen(ShareableLink link) {
+        return Boolean.TRUE.equals(link.getIsActive()) && LocalDateTime.now().isBefore(link.getExpiresAt());
+    }
+
+    private static byte[] mac(SecretKey key, String linkToken, long expiresAt) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key.getEncoded(), "HmacSHA256"));
+            return mac.doFinal((PURPOSE + linkToken + "|" + expiresAt).getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static byte[] decode(String value) {
+        return Base64.getUrlDecoder().decode(value);
+    }
+}
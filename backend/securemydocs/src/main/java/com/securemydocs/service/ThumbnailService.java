@@ -0,0 +1,282 @@
+package com.securemydocs.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.securemydocs.model.Post;
+import com.securemydocs.repository.BlobRefRepository;
+import com.securemydocs.repository.PostRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Builds small JPEG previews for stored images and the first page of stored PDFs, on a
+// small dedicated pool fed after the post's insert commits, so creating a post never waits
+// on decoding. When the queue is full the preview is skipped; the original still works.
+// Metrics: thumbnails.queue.depth, thumbnails.active, thumbnails.stage{stage=queue|load|render|store}
+// and thumbnails.tasks{outcome=generated|skipped|failed|rejected}.
+@Service
+public class ThumbnailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+    private static final long MAX_SOURCE_PIXELS = 100_000_000L;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private BlobRefRepository blobRefRepository;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @Value("${app.thumbnails.max-size:320}")
+    private int maxSize;
+
+    @Value("${app.thumbnails.threads:2}")
+    private int threads;
+
+    @Value("${app.thumbnails.queue-capacity:500}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnails-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("thumbnails.queue.depth", executor, e -> e.getQueue().size())
+                .description("Posts waiting for a thumbnail")
+                .register(meterRegistry);
+        Gauge.builder("thumbnails.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Thumbnails being generated")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public static boolean hasPreviewSource(Post post) {
+        return BlobStore.isRef(post.getImage()) || (BlobStore.isRef(post.getDocument()) && isPdf(post.getDocumentName()));
+    }
+
+    // Called once the post is committed; never blocks the caller
+    public void submit(Long postId) {
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                stageTimer("queue").record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                generate(postId);
+            });
+        } catch (RejectedExecutionException e) {
+            outcome("rejected");
+            logger.warn("Thumbnail queue full, skipping preview for post {}", postId);
+        }
+    }
+
+    private void generate(Long postId) {
+        try {
+            Optional<Post> found = stageTimer("load").recordCallable(() -> postRepository.findById(postId));
+            if (found.isEmpty() || found.get().isDeleted() || !hasPreviewSource(found.get())) {
+                outcome("skipped");
+                return;
+            }
+            Post post = found.get();
+
+            BufferedImage preview = stageTimer("render").recordCallable(() -> render(post));
+            if (preview == null) {
+                outcome("skipped");
+                return;
+            }
+
+            stageTimer("store").recordCallable(() -> {
+                store(postId, preview);
+                return null;
+            });
+            outcome("generated");
+        } catch (Exception e) {
+            outcome("failed");
+            logger.warn("Thumbnail generation failed for post {}: {}", postId, e.getMessage());
+        }
+    }
+
+    private BufferedImage render(Post post) throws IOException {
+        if (BlobStore.isRef(post.getImage())) {
+            return renderImage(BlobStore.keyOf(post.getImage()));
+        }
+        return renderPdfFirstPage(BlobStore.keyOf(post.getDocument()));
+    }
+
+    // Decodes with source subsampling so a 50-megapixel photo is never fully expanded in memory
+    private BufferedImage renderImage(String key) throws IOException {
+        try (InputStream in = blobStore.open(key);
+             ImageInputStream imageInput = ImageIO.createImageInputStream(in)) {
+            if (imageInput == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInput);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) {
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (maxSize * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return scale(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Renders page one at just enough DPI for the preview size, whatever the page dimensions
+    private BufferedImage renderPdfFirstPage(String key) throws IOException {
+        Optional<Path> path = blobStore.localPath(key);
+        try (PDDocument document = path.isPresent()
+                ? Loader.loadPDF(new RandomAccessReadBufferedFile(path.get()))
+                : Loader.loadPDF(new RandomAccessReadBuffer(blobStore.open(key)))) {
+            if (document.getNumberOfPages() == 0) {
+                return null;
+            }
+            PDRectangle box = document.getPage(0).getCropBox();
+            float longestPoints = Math.max(box.getWidth(), box.getHeight());
+            float dpi = Math.max(1f, Math.min(150f, maxSize * 72f / Math.max(1f, longestPoints)));
+            return scale(new PDFRenderer(document).renderImageWithDPI(0, dpi, ImageType.RGB));
+        }
+    }
+
+    // Fits the image in maxSize x maxSize on a white background (JPEG has no alpha)
+    private BufferedImage scale(BufferedImage source) {
+        double ratio = Math.min(1.0, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    // Thumbnails are ordinary content-addressed blobs and share the reference counting
+    private void store(Long postId, BufferedImage preview) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(preview, "jpg", bytes);
+        BlobInfo blob = blobStore.put(new ByteArrayInputStream(bytes.toByteArray()));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            blobRefRepository.acquire(blob.key(), blob.size(), now);
+            Optional<Post> found = postRepository.findById(postId);
+            if (found.isEmpty() || found.get().isDeleted()) {
+                // deleted meanwhile; a zero count lets BlobGarbageCollector remove the file
+                blobRefRepository.release(blob.key(), now);
+                return;
+            }
+            Post post = found.get();
+            if (BlobStore.isRef(post.getThumbnail())) {
+                blobRefRepository.release(BlobStore.keyOf(post.getThumbnail()), now);
+            }
+            post.setThumbnail(BlobStore.toRef(blob.key()));
+            postRepository.save(post);
+            changeVersionService.markChanged(post.getUser().getId(), ChangeVersionService.Scope.POSTS);
+        });
+    }
+
+    private static boolean isPdf(String fileName) {
+        return MediaTypeFactory.getMediaType(fileName)
+                .map(MediaType.APPLICATION_PDF::equalsTypeAndSubtype)
+                .orElse(false);
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("thumbnails.stage")
+                .description("Time spent per thumbnail pipeline stage")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private void outcome(String outcome) {
+        Counter.builder("thumbnails.tasks")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,93 @@
+package com.securemydocs.service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.securemydocs.model.User;
+import com.securemydocs.repository.UserRepository;
+
+// In-process cache of users by email so authenticated requests don't hit
+// UserRepository.findByEmail every time. Entries are evicted by UserServiceImplemention
+// whenever a user is changed, and expire after ENTRY_TTL_MILLIS so that changes made
+// on another node are picked up.
+@Component
+public class UserCache {
+
+    private static final int MAX_ENTRIES = 5_000;
+    private static final long ENTRY_TTL_MILLIS = 5 * 60 * 1000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public Optional<User> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(email);
+        if (entry != null && entry.expiresAt > now) {
+            hits.increment();
+            return Optional.of(entry.user);
+        }
+
+        misses.increment();
+        User user = userRepository.findByEmail(email);
+        if (user != null) {
+            if (entries.size() >= MAX_ENTRIES) {
+                evict(now);
+            }
+            entries.put(email, new Entry(user, now + ENTRY_TTL_MILLIS));
+        }
+        return Optional.ofNullable(user);
+    }
+
+    public void invalidate(String email) {
+        if (email != null) {
+            entries.remove(email);
+        }
+    }
+
+    public void invalidate(User user) {
+        if (user != null) {
+            invalidate(user.getEmail());
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() >= MAX_ENTRIES && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static final class Entry {
+        private final User user;
+        private final long expiresAt;
+
+        private Entry(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
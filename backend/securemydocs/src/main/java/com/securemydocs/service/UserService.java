@@ -3,12 +3,14 @@ package com.securemydocs.service;
 import java.util.Optional;
 import com.securemydocs.exceptions.UserException;
 import com.securemydocs.model.User;
+import com.securemydocs.response.UserProfile;
 
 public interface UserService {
     public User registerUser(User user);
-    public User findUserById(Integer userId) throws UserException;
+    public User findUserById(Long userId) throws UserException;
+    public UserProfile findUserProfile(Long userId) throws UserException;
     public User findUserByEmail(String Email);
-    public User updateUser(User user, Integer userId) throws UserException;
+    public User updateUser(User user, Long userId) throws UserException;
     public Optional<User> findUserByJwt(String jwt);
     
     // Password reset methods
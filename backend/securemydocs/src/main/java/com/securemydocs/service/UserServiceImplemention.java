@@ -14,6 +14,7 @@ import com.securemydocs.model.PasswordResetToken;
 import com.securemydocs.model.User;
 import com.securemydocs.repository.PasswordResetTokenRepository;
 import com.securemydocs.repository.UserRepository;
+import com.securemydocs.response.UserProfile;
 
 @Service
 public class UserServiceImplemention implements UserService {
@@ -27,6 +28,12 @@ public class UserServiceImplemention implements UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
     // REMOVE THIS PROBLEMATIC LINE:
     // PasswordResetToken existingToken = passwordResetTokenRepository.findByUser(user);
 
@@ -43,7 +50,7 @@ public class UserServiceImplemention implements UserService {
     }
 
     @Override
-    public User findUserById(Integer userId) throws UserException {
+    public User findUserById(Long userId) throws UserException {
         Optional<User> users = userRepository.findById(userId);
 
         if (users.isPresent()) {
@@ -53,13 +60,19 @@ public class UserServiceImplemention implements UserService {
         throw new UserException("user not exist with userId " + userId);
     }
 
+    @Override
+    public UserProfile findUserProfile(Long userId) throws UserException {
+        return userRepository.findProfileById(userId)
+                .orElseThrow(() -> new UserException("user not exist with userId " + userId));
+    }
+
     @Override
     public User findUserByEmail(String email) {
         return userRepository.findByEmail(email);
     }
 
     @Override
-    public User updateUser(User user, Integer userId) throws UserException {
+    public User updateUser(User user, Long userId) throws UserException {
         Optional<User> user1 = userRepository.findById(userId);
 
         if (user1.isEmpty()) {
@@ -67,6 +80,7 @@ public class UserServiceImplemention implements UserService {
         }
 
         User oldUser = user1.get();
+        String oldEmail = oldUser.getEmail();
 
         if (user.getFirstName() != null) {
             oldUser.setFirstName(user.getFirstName());
@@ -81,14 +95,17 @@ public class UserServiceImplemention implements UserService {
             oldUser.setLastName(user.getLastName());
         }
 
-        return userRepository.save(oldUser);
+        User savedUser = userRepository.save(oldUser);
+        changeVersionService.markChanged(savedUser.getId(), ChangeVersionService.Scope.PROFILE);
+        userCache.invalidate(oldEmail);
+        userCache.invalidate(savedUser);
+        return savedUser;
     }
 
     @Override
     public Optional<User> findUserByJwt(String jwt) {
         String email = JwtProvider.getEmailFromJwtToken(jwt);
-        User user = userRepository.findByEmail(email);
-        return Optional.ofNullable(user);
+        return userCache.findByEmail(email);
     }
 
     @Override
@@ -151,5 +168,6 @@ public class UserServiceImplemention implements UserService {
     public void changePassword(User user, String newPassword) {
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        userCache.invalidate(user);
     }
 }
\ No newline at end of file
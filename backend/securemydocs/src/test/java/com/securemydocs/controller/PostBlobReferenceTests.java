@@ -0,0 +1,80 @@
+package com.securemydocs.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.securemydocs.config.JwtProvider;
+import com.securemydocs.model.User;
+import com.securemydocs.repository.PostRepository;
+import com.securemydocs.repository.UserRepository;
+
+// Blob references may only be set by the paths that store and count them; a client
+// must not be able to point a post at a file it did not upload
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:blobrefs;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class PostBlobReferenceTests {
+
+    private static final String SOMEONE_ELSES_KEY = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    private User user;
+    private String jwt;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("blobs-" + System.nanoTime() + "@example.com");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setPassword("not-used");
+        user = userRepository.save(user);
+        jwt = "Bearer " + JwtProvider.generatedToken(new UsernamePasswordAuthenticationToken(user.getEmail(), null));
+    }
+
+    @Test
+    void createPostRejectsBlobReferences() throws Exception {
+        for (String field : new String[] { "document", "image", "video" }) {
+            mockMvc.perform(post("/api/posts")
+                    .header("Authorization", jwt)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"" + field + "\":\"blob:" + SOMEONE_ELSES_KEY + "\",\"" + field + "Name\":\"x.pdf\"}"))
+                    .andExpect(status().isBadRequest());
+        }
+        assertThat(postRepository.findSummariesByUserId(user.getId())).isEmpty();
+    }
+
+    @Test
+    void createPostAcceptsExternalUrls() throws Exception {
+        mockMvc.perform(post("/api/posts")
+                .header("Authorization", jwt)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"document\":\"https://files.example.com/a.pdf\",\"documentName\":\"a.pdf\"}"))
+                .andExpect(status().isCreated());
+    }
+}
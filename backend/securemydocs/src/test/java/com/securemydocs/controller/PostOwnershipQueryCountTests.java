@@ -0,0 +1,154 @@
+package com.securemydocs.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import com.securemydocs.config.JwtProvider;
+import com.securemydocs.model.Post;
+import com.securemydocs.model.User;
+import com.securemydocs.repository.PostRepository;
+import com.securemydocs.repository.UserRepository;
+import com.securemydocs.service.UserCache;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// Guards the number of SQL statements the post endpoints run, so ownership
+// checks stay a single indexed lookup
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ownership;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        // Audit entries are inserted later by AuditLogWriter; holding them back keeps
+        // the background inserts out of the counts
+        "app.audit.writer.flush-interval-ms=60000",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class PostOwnershipQueryCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private String ownerJwt;
+    private String otherJwt;
+    private Long postId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User owner = saveUser("owner-" + System.nanoTime() + "@example.com");
+        User other = saveUser("other-" + System.nanoTime() + "@example.com");
+
+        Post post = new Post();
+        post.setDocument("https://files.example.com/contract.pdf");
+        post.setDocumentName("contract.pdf");
+        post.setUser(owner);
+        postId = postRepository.save(post).getId();
+
+        ownerJwt = bearer(owner);
+        otherJwt = bearer(other);
+
+        // The request-scoped user comes from the user cache; warm it so only
+        // the statements of the endpoint itself are counted
+        userCache.findByEmail(owner.getEmail());
+        userCache.findByEmail(other.getEmail());
+    }
+
+    @Test
+    void getPostRunsOneStatement() throws Exception {
+        assertThat(statementsFor(get("/api/posts/{id}", postId).header("Authorization", ownerJwt), status().isOk()))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void otpStatusRunsOneStatement() throws Exception {
+        assertThat(statementsFor(get("/api/posts/{id}/otp-status", postId).header("Authorization", ownerJwt), status().isOk()))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void foreignPostIsRejectedWithoutLoadingItsOwner() throws Exception {
+        // findByIdAndUserId misses, then one existence check to answer 403 rather than 404
+        assertThat(statementsFor(get("/api/posts/{id}", postId).header("Authorization", otherJwt), status().isForbidden()))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void updateOtpProtectionRunsLookupUpdateAndVersionBump() throws Exception {
+        assertThat(statementsFor(patch("/api/posts/{id}/otp-protection", postId)
+                .param("enabled", "true")
+                .header("Authorization", ownerJwt), status().isOk()))
+                .isEqualTo(3);
+    }
+
+    @Test
+    void createShareLinkRunsLookupAndInsert() throws Exception {
+        assertThat(statementsFor(post("/api/share/create/{id}", postId)
+                .param("expiresAt", LocalDateTime.now().plusDays(1).toString())
+                .param("maxUses", "5")
+                .header("Authorization", ownerJwt), status().isOk()))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void deletePostRunsLookupTombstoneAndVersionBump() throws Exception {
+        assertThat(statementsFor(delete("/api/posts/{id}", postId).header("Authorization", ownerJwt), status().isNoContent()))
+                .isEqualTo(3);
+    }
+
+    private long statementsFor(RequestBuilder request, ResultMatcher expectedStatus) throws Exception {
+        statistics.clear();
+        mockMvc.perform(request).andExpect(expectedStatus);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User saveUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setPassword("not-used");
+        return userRepository.save(user);
+    }
+
+    private static String bearer(User user) {
+        return "Bearer " + JwtProvider.generatedToken(new UsernamePasswordAuthenticationToken(user.getEmail(), null));
+    }
+}
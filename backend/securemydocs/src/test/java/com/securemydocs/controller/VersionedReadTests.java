@@ -0,0 +1,121 @@
+package com.securemydocs.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.securemydocs.config.JwtProvider;
+import com.securemydocs.model.Post;
+import com.securemydocs.model.ShareableLink;
+import com.securemydocs.model.User;
+import com.securemydocs.repository.PostRepository;
+import com.securemydocs.repository.UserRepository;
+import com.securemydocs.service.ShareableLinkService;
+import com.securemydocs.service.UserCache;
+
+// A body sent with a version tag is read after the version, not taken from a copy cached
+// before it: each test changes a row the way another node would, with a cached copy of
+// the old row left behind on this one
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:versionedreads;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class VersionedReadTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private ShareableLinkService shareableLinkService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("versioned-" + System.nanoTime() + "@example.com");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setPassword("not-used");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void profileIsNotServedFromTheUserCache() throws Exception {
+        userCache.findByEmail(user.getEmail());
+
+        jdbcTemplate.update("UPDATE user SET first_name = 'Renamed' WHERE id = ?", user.getId());
+        bumpVersions();
+
+        String etag = mockMvc.perform(get("/api/users/profile").header("Authorization", bearer()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.firstName").value("Renamed"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(etag).endsWith("-1\"");
+    }
+
+    @Test
+    void sharedPostIsNotServedFromTheSecondLevelCache() throws Exception {
+        Post post = new Post();
+        post.setDocument("https://example.com/file.pdf");
+        post.setDocumentName("before.pdf");
+        // The shared view puts every name in Map.of, which takes no nulls
+        post.setImage("https://example.com/image.png");
+        post.setImageName("image.png");
+        post.setVideo("https://example.com/video.mp4");
+        post.setVideoName("video.mp4");
+        post.setUser(user);
+        post.setCreatedAt(LocalDateTime.now());
+        post = postRepository.save(post);
+        ShareableLink link = shareableLinkService.createShareableLink(post, LocalDateTime.now().plusDays(1), null);
+        postRepository.findById(post.getId());
+
+        jdbcTemplate.update("UPDATE post SET document_name = 'after.pdf' WHERE id = ?", post.getId());
+        bumpVersions();
+
+        String etag = mockMvc.perform(get("/api/public/shared/{token}", link.getToken()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.post.documentName").value("after.pdf"))
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(etag).isEqualTo("W/\"share-1\"");
+    }
+
+    private void bumpVersions() {
+        jdbcTemplate.update("INSERT INTO user_versions (user_id, posts_version, audit_version, profile_version) "
+                + "VALUES (?, 1, 0, 1)", user.getId());
+    }
+
+    private String bearer() {
+        return "Bearer " + JwtProvider.generatedToken(new UsernamePasswordAuthenticationToken(user.getEmail(), null));
+    }
+}
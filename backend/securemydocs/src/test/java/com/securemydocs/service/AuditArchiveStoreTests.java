@@ -0,0 +1,106 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileCopyUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.securemydocs.response.AuditLogEntry;
+
+// Monthly audit archives: one gzip member per user, read back through the index
+class AuditArchiveStoreTests {
+
+    private static final YearMonth MONTH = YearMonth.of(2024, 3);
+
+    @TempDir
+    private Path dir;
+
+    private AuditArchiveStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new AuditArchiveStore();
+        ReflectionTestUtils.setField(store, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(store, "dir", dir);
+    }
+
+    @Test
+    void readsOneUsersRowsOfAMonth() throws Exception {
+        long written = store.write(MONTH, List.of(
+                row(1, 10, "UPLOAD", 1),
+                row(2, 10, "DELETE", 2),
+                row(3, 20, "IMPORT", 1),
+                row(4, 30, "UPLOAD", 5)).iterator());
+
+        assertThat(written).isEqualTo(4);
+        assertThat(store.contains(MONTH)).isTrue();
+        assertThat(store.read(MONTH, 10L)).extracting(AuditLogEntry::id).containsExactly(1L, 2L);
+        assertThat(store.read(MONTH, 20L)).singleElement().satisfies(entry -> {
+            assertThat(entry.action()).isEqualTo("IMPORT");
+            assertThat(entry.fileName()).isEqualTo("file-3");
+            assertThat(entry.timestamp()).isEqualTo(MONTH.atDay(1).atStartOfDay());
+        });
+        assertThat(store.read(MONTH, 2L)).isEmpty();
+    }
+
+    @Test
+    void wholeMonthIsOneGzipFile() throws Exception {
+        store.write(MONTH, List.of(row(1, 10, "UPLOAD", 1), row(2, 20, "UPLOAD", 1)).iterator());
+
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(
+                Files.newInputStream(dir.resolve("audit-2024-03.ndjson.gz"))), StandardCharsets.UTF_8)) {
+            assertThat(FileCopyUtils.copyToString(reader).lines()).hasSize(2);
+        }
+    }
+
+    @Test
+    void listsMonthsAndNoticesNewOnes() throws Exception {
+        assertThat(store.months()).isEmpty();
+        store.write(MONTH, List.of(row(1, 10, "UPLOAD", 1)).iterator());
+        assertThat(store.months()).containsExactly(MONTH);
+
+        // Once the directory time has settled the listing is reused while it stays the same
+        FileTime settled = FileTime.from(Instant.now().minusSeconds(60));
+        Files.setLastModifiedTime(dir, settled);
+        assertThat(store.months()).containsExactly(MONTH);
+        Files.writeString(dir.resolve("audit-2023-01.idx"), "");
+        Files.setLastModifiedTime(dir, settled);
+        assertThat(store.months()).containsExactly(MONTH);
+        Files.delete(dir.resolve("audit-2023-01.idx"));
+
+        store.write(MONTH.plusMonths(1), List.of(row(2, 10, "UPLOAD", 1)).iterator());
+
+        assertThat(store.months()).containsExactly(MONTH, MONTH.plusMonths(1));
+        assertThat(store.stream(store.months(), 10L)).extracting(AuditLogEntry::id).containsExactly(1L, 2L);
+        assertThat(AuditArchiveStore.endOf(store.months())).isEqualTo(LocalDateTime.of(2024, 5, 1, 0, 0));
+    }
+
+    @Test
+    void unfinishedMonthIsNotListed() throws Exception {
+        Files.writeString(dir.resolve("audit-2024-03.ndjson.gz.tmp"), "partial");
+        Files.writeString(dir.resolve("audit-2024-03.idx.tmp"), "10 0 7\n");
+
+        assertThat(store.months()).isEmpty();
+        assertThat(store.contains(MONTH)).isFalse();
+    }
+
+    private static AuditArchiveStore.Row row(long id, long userId, String action, int day) {
+        return new AuditArchiveStore.Row(id, userId, action, "file-" + id, MONTH.atDay(day).atStartOfDay());
+    }
+}
@@ -0,0 +1,75 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.securemydocs.model.AuditAction;
+
+// Conversion of audit rows written with free-text action and file name columns
+class AuditLogMigrationTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private AuditLogMigration migration;
+
+    @BeforeEach
+    void createLegacySchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:auditmigration-" + System.nanoTime() + ";MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        migration = new AuditLogMigration();
+        ReflectionTestUtils.setField(migration, "dataSource", dataSource);
+        ReflectionTestUtils.setField(migration, "batchSize", 2);
+
+        // As Hibernate leaves it on the first start: new columns added next to the old ones
+        jdbcTemplate.execute("CREATE TABLE audit_logs (id BIGINT NOT NULL PRIMARY KEY, action VARCHAR(255), "
+                + "file_name VARCHAR(255), action_code SMALLINT DEFAULT 0 NOT NULL, action_name VARCHAR(255), "
+                + "detail VARCHAR(255), timestamp TIMESTAMP, user_id BIGINT)");
+        jdbcTemplate.update("INSERT INTO audit_logs (id, action, file_name) VALUES (1, 'UPLOAD', 'a.pdf')");
+        jdbcTemplate.update("INSERT INTO audit_logs (id, action, file_name) VALUES (2, 'SHARE_LINK', 'b.pdf')");
+        jdbcTemplate.update("INSERT INTO audit_logs (id, action, file_name) VALUES (3, 'DELETE', 'c.pdf')");
+        jdbcTemplate.update("INSERT INTO audit_logs (id, action, file_name) VALUES (4, 'OTHER', 'd.pdf')");
+        jdbcTemplate.update("INSERT INTO audit_logs (id, action, file_name) VALUES (5, 'LOGIN', NULL)");
+    }
+
+    @Test
+    void storesCodesAndKeepsUnknownActionNames() {
+        migration.afterPropertiesSet();
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT action_code, action_name, detail FROM audit_logs ORDER BY id");
+        assertThat(rows).extracting(row -> ((Number) row.get("ACTION_CODE")).shortValue()).containsExactly(
+                AuditAction.UPLOAD.getCode(), AuditAction.OTHER.getCode(), AuditAction.DELETE.getCode(),
+                AuditAction.OTHER.getCode(), AuditAction.OTHER.getCode());
+        assertThat(rows).extracting(row -> row.get("ACTION_NAME")).containsExactly(null, "SHARE_LINK", null, null, "LOGIN");
+        assertThat(rows).extracting(row -> row.get("DETAIL")).containsExactly("a.pdf", "b.pdf", "c.pdf", "d.pdf", null);
+        assertThat(hasColumn("ACTION")).isFalse();
+        assertThat(hasColumn("FILE_NAME")).isFalse();
+    }
+
+    @Test
+    void secondRunChangesNothing() {
+        migration.afterPropertiesSet();
+        migration.afterPropertiesSet();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_logs WHERE action_name IS NOT NULL", Integer.class))
+                .isEqualTo(2);
+    }
+
+    private boolean hasColumn(String column) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (ResultSet columns = connection.getMetaData().getColumns(null, null, "AUDIT_LOGS", column)) {
+                return columns.next();
+            }
+        }));
+    }
+}
@@ -0,0 +1,69 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+
+import com.securemydocs.model.AuditAction;
+import com.securemydocs.model.User;
+import com.securemydocs.repository.UserRepository;
+
+// Stopping the audit writer writes everything still queued, and entries submitted once it
+// has stopped are written by the caller
+@SpringBootTest
+@DirtiesContext
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:auditdrain;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.audit.writer.flush-size=10000",
+        "app.audit.writer.flush-interval-ms=60000"
+})
+class AuditLogWriterDrainTests {
+
+    private static final int ENTRIES = 250;
+
+    @Autowired
+    private AuditLogWriter auditLogWriter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void stopWritesQueuedEntriesAndLaterOnesInline() throws Exception {
+        User user = new User();
+        user.setEmail("drain-" + System.nanoTime() + "@example.com");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setPassword("not-used");
+        user = userRepository.save(user);
+
+        for (int i = 0; i < ENTRIES; i++) {
+            auditLogWriter.submit(new AuditLogWriter.Entry(AuditAction.IMPORT, "entry " + i, user.getId(), LocalDateTime.now()));
+        }
+        // The batch is neither full nor due, so nothing has been written yet
+        assertThat(count(user)).isZero();
+
+        auditLogWriter.stop();
+        assertThat(count(user)).isEqualTo(ENTRIES);
+
+        auditLogWriter.submit(new AuditLogWriter.Entry(AuditAction.IMPORT, "late", user.getId(), LocalDateTime.now()));
+        assertThat(count(user)).isEqualTo(ENTRIES + 1);
+    }
+
+    private int count(User user) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM audit_logs WHERE user_id = ?", Integer.class, user.getId());
+    }
+}
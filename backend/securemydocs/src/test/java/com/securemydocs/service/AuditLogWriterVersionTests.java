@@ -0,0 +1,87 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.securemydocs.model.AuditAction;
+import com.securemydocs.repository.AuditChainHeadRepository;
+import com.securemydocs.response.AuditLogEntry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// A version bump that fails after the entries reached a store that cannot take them back
+// does not make the writer append them again. The writer and store are built by hand;
+// the context provides the transactions and the anchor table.
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:auditsegments;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class AuditLogWriterVersionTests {
+
+    private static final int ENTRIES = 20;
+    private static final long USER = 42L;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AuditChainHeadRepository auditChainHeadRepository;
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void failedVersionBumpLeavesEachEntryInTheSegmentOnce() throws Exception {
+        SegmentAuditLogStore store = new SegmentAuditLogStore();
+        ReflectionTestUtils.setField(store, "auditChainHeadRepository", auditChainHeadRepository);
+        ReflectionTestUtils.setField(store, "dir", dir);
+        ReflectionTestUtils.setField(store, "segmentBytes", 64 * 1024);
+        ReflectionTestUtils.setField(store, "checkpointInterval", 4);
+        ReflectionTestUtils.setField(store, "forceEachBatch", true);
+        ReflectionTestUtils.setField(store, "chainId", "versions");
+        store.open();
+
+        ChangeVersionService failing = new ChangeVersionService() {
+            @Override
+            public void markChanged(Long userId, Scope scope) {
+                throw new IllegalStateException("version bump failed");
+            }
+        };
+        AuditLogWriter writer = new AuditLogWriter();
+        ReflectionTestUtils.setField(writer, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(writer, "changeVersionService", failing);
+        ReflectionTestUtils.setField(writer, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(writer, "auditLogStore", store);
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+        ReflectionTestUtils.setField(writer, "flushSize", 100);
+        ReflectionTestUtils.setField(writer, "flushIntervalMillis", 60_000L);
+        ReflectionTestUtils.setField(writer, "maxBlockMillis", 100L);
+        ReflectionTestUtils.setField(writer, "shutdownTimeoutMillis", 10_000L);
+        writer.start();
+
+        for (int i = 0; i < ENTRIES; i++) {
+            writer.submit(new AuditLogWriter.Entry(AuditAction.IMPORT, "entry " + i, USER, LocalDateTime.now()));
+        }
+        // Queued entries go out as one batch; the one after stop() is written inline
+        writer.stop();
+        writer.submit(new AuditLogWriter.Entry(AuditAction.IMPORT, "inline", USER, LocalDateTime.now()));
+
+        assertThat(store.findNewestFirst(USER)).extracting(AuditLogEntry::fileName).doesNotHaveDuplicates()
+                .hasSize(ENTRIES + 1);
+        store.close();
+    }
+}
@@ -0,0 +1,162 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+// Conditional GET and byte-range handling of stored file downloads, against a local store
+class BlobDownloadServiceTests {
+
+    private static final String CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    @TempDir
+    Path root;
+
+    private BlobDownloadService downloads;
+    private String key;
+
+    @BeforeEach
+    void storeBlob() throws Exception {
+        LocalFileBlobStore store = new LocalFileBlobStore();
+        ReflectionTestUtils.setField(store, "rootDirectory", root.toString());
+        store.init();
+        key = store.put(new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.US_ASCII))).key();
+
+        downloads = new BlobDownloadService();
+        ReflectionTestUtils.setField(downloads, "blobStore", store);
+    }
+
+    @Test
+    void sendsWholeFileWithoutRange() throws Exception {
+        MockHttpServletResponse response = download(request());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + key + "\"");
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void sendsSingleRange() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-15");
+
+        MockHttpServletResponse response = download(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 10-15/36");
+        assertThat(response.getContentLengthLong()).isEqualTo(6);
+        assertThat(response.getContentAsString()).isEqualTo("abcdef");
+    }
+
+    @Test
+    void sendsSuffixAndOpenEndedRanges() throws Exception {
+        MockHttpServletRequest suffix = request();
+        suffix.addHeader(HttpHeaders.RANGE, "bytes=-4");
+        MockHttpServletResponse suffixResponse = download(suffix);
+
+        assertThat(suffixResponse.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 32-35/36");
+        assertThat(suffixResponse.getContentAsString()).isEqualTo("wxyz");
+
+        MockHttpServletRequest openEnded = request();
+        openEnded.addHeader(HttpHeaders.RANGE, "bytes=30-");
+        MockHttpServletResponse openEndedResponse = download(openEnded);
+
+        assertThat(openEndedResponse.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 30-35/36");
+        assertThat(openEndedResponse.getContentAsString()).isEqualTo("uvwxyz");
+    }
+
+    @Test
+    void sendsMultipleRangesAsMultipart() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-2,10-12");
+
+        MockHttpServletResponse response = download(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentType()).startsWith("multipart/byteranges; boundary=");
+        String boundary = response.getContentType().substring(response.getContentType().indexOf('=') + 1);
+        String body = response.getContentAsString();
+        assertThat(response.getContentLengthLong()).isEqualTo(body.getBytes(StandardCharsets.US_ASCII).length);
+        assertThat(body)
+                .contains("Content-Range: bytes 0-2/36\r\n\r\n012\r\n")
+                .contains("Content-Range: bytes 10-12/36\r\n\r\nabc\r\n")
+                .endsWith("--" + boundary + "--\r\n");
+    }
+
+    @Test
+    void rejectsUnsatisfiableAndAmplifyingRanges() throws Exception {
+        MockHttpServletRequest pastEnd = request();
+        pastEnd.addHeader(HttpHeaders.RANGE, "bytes=36-40");
+        MockHttpServletResponse pastEndResponse = download(pastEnd);
+
+        assertThat(pastEndResponse.getStatus()).isEqualTo(416);
+        assertThat(pastEndResponse.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */36");
+        assertThat(pastEndResponse.getContentAsByteArray()).isEmpty();
+
+        // Overlapping ranges adding up to more than the file
+        MockHttpServletRequest overlapping = request();
+        overlapping.addHeader(HttpHeaders.RANGE, "bytes=0-30,5-35");
+        assertThat(download(overlapping).getStatus()).isEqualTo(416);
+    }
+
+    @Test
+    void ignoresRangeWhenIfRangeIsStale() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-2");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"some-other-version\"");
+
+        MockHttpServletResponse response = download(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+
+        MockHttpServletRequest current = request();
+        current.addHeader(HttpHeaders.RANGE, "bytes=0-2");
+        current.addHeader(HttpHeaders.IF_RANGE, "\"" + key + "\"");
+        assertThat(download(current).getStatus()).isEqualTo(206);
+    }
+
+    @Test
+    void answersNotModifiedForCurrentEtag() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + key + "\"");
+
+        MockHttpServletResponse response = download(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void headSendsHeadersOnly() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/content");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+
+        MockHttpServletResponse response = download(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentLengthLong()).isEqualTo(10);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    private MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/content");
+    }
+
+    private MockHttpServletResponse download(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        downloads.write(key, "notes.txt", request, response);
+        return response;
+    }
+}
@@ -0,0 +1,183 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import com.securemydocs.model.Post;
+import com.securemydocs.model.User;
+import com.securemydocs.repository.BlobRefRepository;
+import com.securemydocs.repository.PostRepository;
+import com.securemydocs.repository.UserRepository;
+
+// Reference counts of content-addressed blobs through upload, delete, purge and
+// collection, and the files each step may remove
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:blobcounts;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.storage.local.root=target/test-blobs/refcounts",
+        "app.storage.gc.grace-minutes=10",
+        // Only the explicit calls below purge and collect
+        "app.posts.purge.interval-ms=3600000",
+        "app.storage.gc.interval-ms=3600000"
+})
+class BlobReferenceCountingTests {
+
+    private static final Path ROOT = Paths.get("target/test-blobs/refcounts");
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostPurgeWorker postPurgeWorker;
+
+    @Autowired
+    private BlobGarbageCollector blobGarbageCollector;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private BlobRefRepository blobRefRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("blobs-" + System.nanoTime() + "@example.com");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setPassword("not-used");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void sharedContentIsKeptUntilTheLastPostIsPurgedAndThenCollected() throws Exception {
+        byte[] content = unique("shared");
+        Post first = upload(content);
+        Post second = upload(content);
+        String key = BlobStore.keyOf(first.getDocument());
+
+        assertThat(second.getDocument()).isEqualTo(first.getDocument());
+        assertThat(refCount(key)).isEqualTo(2);
+
+        deleteAndPurge(first);
+        assertThat(refCount(key)).isEqualTo(1);
+        assertThat(blobStore.stat(key)).isPresent();
+
+        deleteAndPurge(second);
+        assertThat(refCount(key)).isZero();
+        assertThat(blobStore.stat(key)).as("only the collector removes counted files").isPresent();
+
+        age(key);
+        blobGarbageCollector.collect();
+        assertThat(blobStore.stat(key)).isEmpty();
+        assertThat(blobRefRepository.existsById(key)).isFalse();
+    }
+
+    @Test
+    void collectorKeepsFileAndRowTouchedWithinGracePeriod() throws Exception {
+        Post post = upload(unique("touched"));
+        String key = BlobStore.keyOf(post.getDocument());
+        deleteAndPurge(post);
+        age(key);
+
+        // A new upload of the same content touches the file before taking its reference
+        blobStore.put(new ByteArrayInputStream(Files.readAllBytes(blobStore.localPath(key).get())));
+        blobGarbageCollector.collect();
+
+        assertThat(blobStore.stat(key)).isPresent();
+        assertThat(blobRefRepository.existsById(key)).as("the row keeps tracking the file").isTrue();
+    }
+
+    @Test
+    void purgeNeverDeletesContentAddressedFileItDidNotCount() throws Exception {
+        BlobInfo blob = blobStore.put(new ByteArrayInputStream(unique("uncounted")));
+        Post post = new Post();
+        post.setDocument(BlobStore.toRef(blob.key()));
+        post.setDocumentName("uncounted.txt");
+        post.setCreatedAt(LocalDateTime.now());
+        post.setUser(user);
+        post = postRepository.save(post);
+
+        deleteAndPurge(post);
+
+        assertThat(blobStore.stat(blob.key())).isPresent();
+        assertThat(blobRefRepository.existsById(blob.key())).isFalse();
+    }
+
+    @Test
+    void purgeDeletesLegacyFileOfItsOwnPost() throws Exception {
+        String key = String.format("%032x", System.nanoTime());
+        Path file = ROOT.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+        Files.createDirectories(file.getParent());
+        Files.write(file, unique("legacy"));
+
+        Post post = new Post();
+        post.setDocument(BlobStore.toRef(key));
+        post.setDocumentName("legacy.txt");
+        post.setCreatedAt(LocalDateTime.now());
+        post.setUser(user);
+        post = postRepository.save(post);
+
+        deleteAndPurge(post);
+
+        assertThat(Files.exists(file)).isFalse();
+    }
+
+    private Post upload(byte[] content) throws Exception {
+        BlobInfo blob = blobStore.put(new ByteArrayInputStream(content));
+        return postService.createPostForBlob(blob, "file.txt", "text/plain", null, user.getId());
+    }
+
+    private void deleteAndPurge(Post post) throws Exception {
+        postService.deletePost(post.getId());
+        postPurgeWorker.purge();
+        assertThat(postRepository.findById(post.getId())).isEmpty();
+    }
+
+    private int refCount(String key) {
+        return jdbcTemplate.queryForObject("SELECT ref_count FROM blob_refs WHERE content_key = ?", Integer.class, key);
+    }
+
+    // Moves the row and the file past the grace period
+    private void age(String key) throws Exception {
+        jdbcTemplate.update("UPDATE blob_refs SET updated_at = ? WHERE content_key = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(1)), key);
+        Files.setLastModifiedTime(blobStore.localPath(key).get(), FileTime.from(Instant.now().minus(1, ChronoUnit.HOURS)));
+    }
+
+    private static byte[] unique(String label) {
+        return (label + "-" + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+    }
+}
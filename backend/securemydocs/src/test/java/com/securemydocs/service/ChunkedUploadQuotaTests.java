@@ -0,0 +1,96 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.securemydocs.exceptions.UploadQuotaExceededException;
+import com.securemydocs.request.CreateUploadRequest;
+import com.securemydocs.response.UploadStatus;
+
+// Per-user and global limits on resumable upload sessions
+class ChunkedUploadQuotaTests {
+
+    @TempDir
+    Path root;
+
+    private ChunkedUploadService uploads;
+
+    @BeforeEach
+    void createService() throws Exception {
+        uploads = new ChunkedUploadService();
+        ReflectionTestUtils.setField(uploads, "storageRoot", root.toString());
+        ReflectionTestUtils.setField(uploads, "chunkSize", 1024L);
+        ReflectionTestUtils.setField(uploads, "maxSize", 10_000L);
+        ReflectionTestUtils.setField(uploads, "maxSessions", 5);
+        ReflectionTestUtils.setField(uploads, "maxSessionsPerUser", 2);
+        ReflectionTestUtils.setField(uploads, "maxBytesPerUser", 12_000L);
+        ReflectionTestUtils.setField(uploads, "sessionTtlMinutes", 60L);
+        uploads.init();
+    }
+
+    @AfterEach
+    void shutdown() {
+        uploads.shutdown();
+    }
+
+    @Test
+    void limitsSessionsPerUser() throws Exception {
+        uploads.create(1L, request(100));
+        UploadStatus second = uploads.create(1L, request(100));
+
+        assertThatThrownBy(() -> uploads.create(1L, request(100)))
+                .isInstanceOf(UploadQuotaExceededException.class);
+        // Other users are unaffected, and finishing one session frees a slot
+        uploads.create(2L, request(100));
+        uploads.abort(1L, second.uploadId());
+        uploads.create(1L, request(100));
+    }
+
+    @Test
+    void limitsBytesReservedPerUser() throws Exception {
+        uploads.create(1L, request(8_000));
+
+        assertThatThrownBy(() -> uploads.create(1L, request(5_000)))
+                .isInstanceOf(UploadQuotaExceededException.class);
+        uploads.create(1L, request(4_000));
+    }
+
+    @Test
+    void limitsSessionsOverall() throws Exception {
+        for (long user = 1; user <= 5; user++) {
+            uploads.create(user, request(100));
+        }
+
+        assertThatThrownBy(() -> uploads.create(6L, request(100)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectedSessionLeavesNoFileBehind() throws Exception {
+        uploads.create(1L, request(100));
+        uploads.create(1L, request(100));
+        assertThatThrownBy(() -> uploads.create(1L, request(100)))
+                .isInstanceOf(UploadQuotaExceededException.class);
+
+        try (Stream<Path> files = Files.list(root.resolve("tmp"))) {
+            assertThat(files.count()).isEqualTo(2);
+        }
+    }
+
+    private static CreateUploadRequest request(long size) {
+        CreateUploadRequest request = new CreateUploadRequest();
+        request.setFileName("file.bin");
+        request.setSize(size);
+        return request;
+    }
+}
@@ -0,0 +1,107 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.securemydocs.model.AuditAction;
+import com.securemydocs.model.User;
+import com.securemydocs.repository.UserRepository;
+import com.securemydocs.response.AuditLogEntry;
+
+// Audit history that reaches into archived months: the table serves what is newer than
+// the archive, and a month that is archived but not yet dropped is not read twice
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:auditarchive;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.audit.archive.dir=" + DatabaseAuditLogStoreArchiveTests.ARCHIVE_DIR
+})
+class DatabaseAuditLogStoreArchiveTests {
+
+    static final String ARCHIVE_DIR = "target/test-audit-archive";
+    private static final YearMonth ARCHIVED = YearMonth.of(2020, 1);
+
+    @Autowired
+    private AuditLogStore auditLogStore;
+
+    @Autowired
+    private AuditArchiveStore archiveStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path dir = Paths.get(ARCHIVE_DIR);
+        if (Files.exists(dir)) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+        user = new User();
+        user.setEmail("archive-" + System.nanoTime() + "@example.com");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setPassword("not-used");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void newestFirstContinuesIntoTheArchive() throws Exception {
+        archiveStore.write(ARCHIVED, List.of(
+                new AuditArchiveStore.Row(1L, user.getId(), "UPLOAD", "old.pdf", ARCHIVED.atDay(3).atStartOfDay()),
+                new AuditArchiveStore.Row(2L, user.getId(), "DELETE", "old.pdf", ARCHIVED.atDay(9).atStartOfDay())).iterator());
+        // Still in the table although its month is archived
+        append("archived, not dropped", ARCHIVED.atDay(9).atStartOfDay());
+        append("live", LocalDateTime.now());
+
+        List<AuditLogEntry> newestFirst = auditLogStore.findNewestFirst(user.getId());
+
+        assertThat(newestFirst).extracting(AuditLogEntry::fileName).containsExactly("live", "old.pdf", "old.pdf");
+        assertThat(newestFirst.subList(1, 3)).extracting(AuditLogEntry::id).containsExactly(2L, 1L);
+        try (Stream<AuditLogEntry> oldestFirst = auditLogStore.streamOldestFirst(user.getId())) {
+            assertThat(oldestFirst.map(AuditLogEntry::action)).containsExactly("UPLOAD", "DELETE", "IMPORT");
+        }
+    }
+
+    @Test
+    void withoutArchivesTheTableIsEverything() {
+        append("first", LocalDateTime.now().minusDays(1));
+        append("second", LocalDateTime.now());
+
+        assertThat(auditLogStore.findNewestFirst(user.getId())).extracting(AuditLogEntry::fileName)
+                .containsExactly("second", "first");
+    }
+
+    private void append(String detail, LocalDateTime timestamp) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> auditLogStore.append(
+                List.of(new AuditLogWriter.Entry(AuditAction.IMPORT, detail, user.getId(), timestamp))));
+    }
+}
@@ -0,0 +1,113 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.securemydocs.model.Post;
+import com.securemydocs.model.User;
+import com.securemydocs.repository.PostRepository;
+import com.securemydocs.repository.UserRepository;
+
+// Exports read through the separate export pool, are limited in number, and write CSV
+// that a spreadsheet will not evaluate
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:exports;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.export.max-concurrent=1"
+})
+class ExportServiceTests {
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("export-" + System.nanoTime() + "@example.com");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setPassword("not-used");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void writesLivePostsOldestFirst() throws Exception {
+        Post older = save("first", LocalDateTime.now().minusDays(2), null);
+        Post newer = save("second", LocalDateTime.now().minusDays(1), null);
+        save("gone", LocalDateTime.now().minusDays(3), LocalDateTime.now());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.writePosts(user.getId(), ExportService.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"id\":" + older.getId()).contains("\"captions\":\"first\"");
+        assertThat(lines[1]).contains("\"id\":" + newer.getId());
+    }
+
+    @Test
+    void neutralizesFormulasInCsv() throws Exception {
+        save("=HYPERLINK(\"http://evil\",\"x\")", LocalDateTime.now(), null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.writePosts(user.getId(), ExportService.Format.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).contains(",\"'=HYPERLINK(\"\"http://evil\"\",\"\"x\"\")\",");
+    }
+
+    @Test
+    void prefixesEveryFormulaTriggerButLeavesNumbersAlone() throws Exception {
+        StringWriter writer = new StringWriter();
+        ExportService.writeCsvLine(writer, new Object[] { "+1", "-x", "@SUM(A1)", "\tcmd", "plain", -5L, null });
+
+        assertThat(writer.toString()).isEqualTo("'+1,'-x,'@SUM(A1),'\tcmd,plain,-5,\r\n");
+    }
+
+    @Test
+    void turnsAwayExportsBeyondTheLimitUntilOneFinishes() throws Exception {
+        ResponseEntity<StreamingResponseBody> first = exportService.download("csv", "posts", (format, out) -> { });
+        ResponseEntity<StreamingResponseBody> second = exportService.download("csv", "posts", (format, out) -> { });
+
+        assertThat(first.getStatusCode().value()).isEqualTo(200);
+        assertThat(second.getStatusCode().value()).isEqualTo(503);
+
+        first.getBody().writeTo(new ByteArrayOutputStream());
+        ResponseEntity<StreamingResponseBody> third = exportService.download("csv", "posts", (format, out) -> { });
+        assertThat(third.getStatusCode().value()).isEqualTo(200);
+        third.getBody().writeTo(new ByteArrayOutputStream());
+    }
+
+    private Post save(String captions, LocalDateTime createdAt, LocalDateTime deletedAt) {
+        Post post = new Post();
+        post.setCaptions(captions);
+        post.setDocument("https://example.com/file.pdf");
+        post.setUser(user);
+        post.setCreatedAt(createdAt);
+        post.setDeletedAt(deletedAt);
+        return postRepository.save(post);
+    }
+}
@@ -0,0 +1,82 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+// Widening of INT id columns left by databases created before time-ordered ids
+class IdColumnMigrationTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private IdColumnMigration migration;
+
+    @BeforeEach
+    void createLegacySchema() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:idmigration-" + System.nanoTime() + ";MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        migration = new IdColumnMigration();
+        ReflectionTestUtils.setField(migration, "dataSource", dataSource);
+
+        jdbcTemplate.execute("CREATE TABLE user (id INT NOT NULL PRIMARY KEY, email VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE post (id INT NOT NULL AUTO_INCREMENT PRIMARY KEY, user_id INT NOT NULL, "
+                + "captions VARCHAR(255), CONSTRAINT fk_post_user FOREIGN KEY (user_id) REFERENCES user (id))");
+        jdbcTemplate.execute("CREATE TABLE otp (id BIGINT NOT NULL PRIMARY KEY, post_id INT NOT NULL, user_id INT NOT NULL, "
+                + "CONSTRAINT fk_otp_post FOREIGN KEY (post_id) REFERENCES post (id), "
+                + "CONSTRAINT fk_otp_user FOREIGN KEY (user_id) REFERENCES user (id))");
+        jdbcTemplate.execute("CREATE TABLE audit_logs (id INT NOT NULL AUTO_INCREMENT PRIMARY KEY, post_id INT, user_id INT)");
+        jdbcTemplate.update("INSERT INTO user (id, email) VALUES (1, 'a@example.com')");
+        jdbcTemplate.update("INSERT INTO post (id, user_id, captions) VALUES (7, 1, 'kept')");
+        jdbcTemplate.update("INSERT INTO otp (id, post_id, user_id) VALUES (1, 7, 1)");
+    }
+
+    @Test
+    void widensIdsAndReferencingColumnsKeepingForeignKeys() {
+        migration.afterPropertiesSet();
+
+        assertThat(isBigint("user", "id")).isTrue();
+        assertThat(isBigint("post", "id")).isTrue();
+        assertThat(isBigint("post", "user_id")).isTrue();
+        assertThat(isBigint("otp", "post_id")).isTrue();
+        assertThat(isBigint("otp", "user_id")).isTrue();
+        assertThat(isBigint("audit_logs", "id")).isTrue();
+        assertThat(isBigint("audit_logs", "user_id")).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT captions FROM post WHERE id = 7", String.class)).isEqualTo("kept");
+
+        // Time-ordered ids now fit, and the foreign keys are back
+        long id = 1L << 52;
+        jdbcTemplate.update("INSERT INTO user (id, email) VALUES (?, 'b@example.com')", id);
+        jdbcTemplate.update("INSERT INTO post (id, user_id, captions) VALUES (?, ?, 'new')", id, id);
+        assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO otp (id, post_id, user_id) VALUES (2, 12345, 1)"))
+                .hasMessageContaining("FK_OTP_POST");
+        assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO post (id, user_id) VALUES (8, 999)"))
+                .hasMessageContaining("FK_POST_USER");
+    }
+
+    @Test
+    void secondRunChangesNothing() {
+        migration.afterPropertiesSet();
+        migration.afterPropertiesSet();
+
+        assertThat(isBigint("post", "id")).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM otp", Integer.class)).isEqualTo(1);
+    }
+
+    private boolean isBigint(String table, String column) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet columns = metaData.getColumns(null, null, table.toUpperCase(), column.toUpperCase())) {
+                return columns.next() && "BIGINT".equals(columns.getString("TYPE_NAME"));
+            }
+        }));
+    }
+}
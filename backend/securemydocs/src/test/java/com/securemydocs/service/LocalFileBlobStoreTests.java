@@ -0,0 +1,67 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+// Multipart uploads are stored under their SHA-256 from a single read of the spooled part
+class LocalFileBlobStoreTests {
+
+    private static final byte[] CONTENT = "uploaded once, hashed on the way".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path root;
+
+    private LocalFileBlobStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new LocalFileBlobStore();
+        ReflectionTestUtils.setField(store, "rootDirectory", root.toString());
+        store.init();
+    }
+
+    @Test
+    void multipartIsHashedWhileItIsCopied() throws Exception {
+        AtomicInteger reads = new AtomicInteger();
+        MockMultipartFile part = new MockMultipartFile("file", "a.txt", "text/plain", CONTENT) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                reads.incrementAndGet();
+                return super.getInputStream();
+            }
+
+            @Override
+            public void transferTo(File dest) {
+                throw new AssertionError("the part must not be copied and then read again");
+            }
+        };
+
+        BlobInfo blob = store.put(part);
+
+        assertThat(reads).hasValue(1);
+        assertThat(blob.key()).isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENT)));
+        assertThat(blob.size()).isEqualTo(CONTENT.length);
+        try (InputStream in = store.open(blob.key())) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+        try (Stream<Path> staged = Files.list(root.resolve("tmp"))) {
+            assertThat(staged).isEmpty();
+        }
+    }
+}
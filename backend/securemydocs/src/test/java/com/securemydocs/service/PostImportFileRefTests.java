@@ -0,0 +1,115 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import com.securemydocs.model.Post;
+import com.securemydocs.model.User;
+import com.securemydocs.repository.UserRepository;
+import com.securemydocs.response.ImportReport;
+
+// Imports may only attach files the importing user already holds, and refuse every other
+// key the same way whether or not it is stored
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:importrefs;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.storage.local.root=target/test-blobs/import"
+})
+class PostImportFileRefTests {
+
+    @Autowired
+    private PostImportService postImportService;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User owner;
+    private User other;
+
+    @BeforeEach
+    void setUp() {
+        owner = user("owner");
+        other = user("other");
+    }
+
+    @Test
+    void reusesFileTheUserAlreadyHolds() throws Exception {
+        Post uploaded = upload(owner, "own file");
+
+        ImportReport report = importLine(owner, "{\"document\":\"" + uploaded.getDocument() + "\",\"documentName\":\"copy.txt\"}");
+
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT ref_count FROM blob_refs WHERE content_key = ?",
+                Integer.class, BlobStore.keyOf(uploaded.getDocument()))).isEqualTo(2);
+    }
+
+    @Test
+    void refusesAnotherUsersFileLikeAMissingOne() throws Exception {
+        Post foreign = upload(other, "someone else's file");
+        String missing = BlobStore.toRef("0".repeat(64));
+
+        ImportReport stolen = importLine(owner, "{\"document\":\"" + foreign.getDocument() + "\"}");
+        ImportReport probed = importLine(owner, "{\"document\":\"" + missing + "\"}");
+
+        assertThat(stolen.imported()).isZero();
+        assertThat(probed.imported()).isZero();
+        assertThat(stolen.errors()).hasSize(1);
+        assertThat(stolen.errors().get(0).message()).isEqualTo(probed.errors().get(0).message());
+        assertThat(jdbcTemplate.queryForObject("SELECT ref_count FROM blob_refs WHERE content_key = ?",
+                Integer.class, BlobStore.keyOf(foreign.getDocument()))).isEqualTo(1);
+    }
+
+    @Test
+    void refusesStoredFileNoPostReferences() throws Exception {
+        BlobInfo loose = blobStore.put(new ByteArrayInputStream(unique("loose")));
+
+        ImportReport report = importLine(owner, "{\"image\":\"" + BlobStore.toRef(loose.key()) + "\"}");
+
+        assertThat(report.imported()).isZero();
+        assertThat(report.failed()).isEqualTo(1);
+    }
+
+    private ImportReport importLine(User user, String line) throws Exception {
+        return postImportService.importPosts(user.getId(), new ByteArrayInputStream((line + "\n").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Post upload(User user, String label) throws Exception {
+        BlobInfo blob = blobStore.put(new ByteArrayInputStream(unique(label)));
+        return postService.createPostForBlob(blob, "file.txt", "text/plain", null, user.getId());
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setEmail(name + "-" + System.nanoTime() + "@example.com");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setPassword("not-used");
+        return userRepository.save(user);
+    }
+
+    private static byte[] unique(String label) {
+        return (label + "-" + System.nanoTime()).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,127 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import com.securemydocs.model.OTP;
+import com.securemydocs.model.Post;
+import com.securemydocs.model.ShareableLink;
+import com.securemydocs.model.User;
+import com.securemydocs.repository.OTPRepository;
+import com.securemydocs.repository.ShareableLinkRepository;
+import com.securemydocs.repository.UserRepository;
+
+// Deleted posts are purged in the background: their OTPs and share links go in batches
+// smaller than their number, then the row, and its files are released
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:purge;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "app.storage.local.root=target/test-blobs/purge",
+        "app.posts.purge.batch-size=2",
+        "app.posts.purge.interval-ms=3600000"
+})
+class PostPurgeTests {
+
+    @Autowired
+    private PostPurgeWorker postPurgeWorker;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private OTPRepository otpRepository;
+
+    @Autowired
+    private ShareableLinkRepository shareableLinkRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("purge-" + System.nanoTime() + "@example.com");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setPassword("not-used");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void purgesDeletedPostWithMoreDependentsThanOneBatch() throws Exception {
+        Post deleted = upload("deleted");
+        Post kept = upload("kept");
+        addDependents(deleted, 5, 3);
+        addDependents(kept, 1, 1);
+
+        postService.deletePost(deleted.getId());
+        postPurgeWorker.purge();
+
+        assertThat(count("SELECT COUNT(*) FROM post WHERE id = ?", deleted.getId())).isZero();
+        assertThat(count("SELECT COUNT(*) FROM otp WHERE post_id = ?", deleted.getId())).isZero();
+        assertThat(count("SELECT COUNT(*) FROM shareable_links WHERE post_id = ?", deleted.getId())).isZero();
+        assertThat(refCount(deleted)).isZero();
+
+        assertThat(count("SELECT COUNT(*) FROM post WHERE id = ?", kept.getId())).isEqualTo(1);
+        assertThat(count("SELECT COUNT(*) FROM otp WHERE post_id = ?", kept.getId())).isEqualTo(1);
+        assertThat(count("SELECT COUNT(*) FROM shareable_links WHERE post_id = ?", kept.getId())).isEqualTo(1);
+        assertThat(refCount(kept)).isEqualTo(1);
+    }
+
+    @Test
+    void leavesLivePostsAlone() throws Exception {
+        Post live = upload("live");
+        addDependents(live, 3, 3);
+
+        postPurgeWorker.purge();
+
+        assertThat(count("SELECT COUNT(*) FROM post WHERE id = ?", live.getId())).isEqualTo(1);
+        assertThat(count("SELECT COUNT(*) FROM otp WHERE post_id = ?", live.getId())).isEqualTo(3);
+        assertThat(refCount(live)).isEqualTo(1);
+    }
+
+    private Post upload(String label) throws Exception {
+        BlobInfo blob = blobStore.put(new ByteArrayInputStream(
+                (label + "-" + System.nanoTime()).getBytes(StandardCharsets.UTF_8)));
+        return postService.createPostForBlob(blob, "file.txt", "text/plain", label, user.getId());
+    }
+
+    private void addDependents(Post post, int otps, int links) {
+        for (int i = 0; i < otps; i++) {
+            otpRepository.save(new OTP("00000" + i, user.getEmail(), LocalDateTime.now().plusMinutes(5), post, user));
+        }
+        for (int i = 0; i < links; i++) {
+            shareableLinkRepository.save(new ShareableLink(post, LocalDateTime.now().plusDays(1), null));
+        }
+    }
+
+    private int refCount(Post post) {
+        return count("SELECT ref_count FROM blob_refs WHERE content_key = ?", BlobStore.keyOf(post.getDocument()));
+    }
+
+    private int count(String sql, Object arg) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, arg);
+    }
+}
@@ -0,0 +1,81 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import com.securemydocs.model.Post;
+import com.securemydocs.model.User;
+import com.securemydocs.repository.PostRepository;
+import com.securemydocs.repository.UserRepository;
+
+// Words that prefix more indexed terms than are expanded still find every post they match
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:searchversions;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class PostSearchIndexPrefixTests {
+
+    private static final int POSTS = 300;
+
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("prefix-" + System.nanoTime() + "@example.com");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setPassword("not-used");
+        user = userRepository.save(user);
+
+        // One distinct term per post under "a", more than a single word expands to
+        for (int i = 0; i < POSTS; i++) {
+            Post post = new Post();
+            post.setCaptions(String.format("a%04d %s", i, i % 2 == 0 ? "even" : "odd"));
+            post.setDocument("https://example.com/" + i + ".pdf");
+            post.setUser(user);
+            post.setCreatedAt(LocalDateTime.now());
+            ids.add(postRepository.save(post).getId());
+        }
+    }
+
+    @Test
+    void wideWordAloneMatchesEveryPost() {
+        assertThat(postSearchIndex.search(user.getId(), "a", POSTS * 2)).containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    void wideWordNarrowsTheOtherWords() {
+        List<Long> even = new ArrayList<>();
+        for (int i = 0; i < POSTS; i += 2) {
+            even.add(ids.get(i));
+        }
+
+        assertThat(postSearchIndex.search(user.getId(), "a even", POSTS * 2)).containsExactlyInAnyOrderElementsOf(even);
+        assertThat(postSearchIndex.search(user.getId(), "even a0299", 10)).isEmpty();
+        assertThat(postSearchIndex.search(user.getId(), "a0298 a", 10)).containsExactly(ids.get(298));
+    }
+}
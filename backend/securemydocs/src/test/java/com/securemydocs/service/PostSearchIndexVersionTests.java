@@ -0,0 +1,111 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import com.securemydocs.model.Post;
+import com.securemydocs.model.User;
+import com.securemydocs.repository.PostRepository;
+import com.securemydocs.repository.UserRepository;
+
+// The search partition follows the user's posts version: local updates keep it current
+// without a rebuild, changes it did not see (another node's) make the next search rebuild it
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:searchversions;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class PostSearchIndexVersionTests {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("search-" + System.nanoTime() + "@example.com");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setPassword("not-used");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void localCreateIsIndexedWithoutRebuild() throws Exception {
+        Post first = postService.createNewPost(post("quarterly report"), user.getId());
+        assertThat(postSearchIndex.search(user.getId(), "quarterly", 10)).containsExactly(first.getId());
+
+        Post second = postService.createNewPost(post("quarterly budget"), user.getId());
+        // Written behind the index's back without a version bump: only a rebuild would find it
+        Post unseen = insertElsewhere("quarterly forecast");
+
+        assertThat(postSearchIndex.search(user.getId(), "quarterly", 10))
+                .containsExactlyInAnyOrder(first.getId(), second.getId())
+                .doesNotContain(unseen.getId());
+    }
+
+    @Test
+    void changeFromAnotherNodeTriggersRebuild() throws Exception {
+        Post first = postService.createNewPost(post("invoice march"), user.getId());
+        assertThat(postSearchIndex.search(user.getId(), "invoice", 10)).containsExactly(first.getId());
+
+        // What another node's create leaves behind: the row and a bumped posts version
+        Post remote = insertElsewhere("invoice april");
+        jdbcTemplate.update("UPDATE user_versions SET posts_version = posts_version + 1 WHERE user_id = ?", user.getId());
+
+        assertThat(postSearchIndex.search(user.getId(), "invoice", 10))
+                .containsExactlyInAnyOrder(first.getId(), remote.getId());
+    }
+
+    @Test
+    void deleteElsewhereIsDroppedOnNextSearch() throws Exception {
+        Post kept = postService.createNewPost(post("contract signed"), user.getId());
+        Post removed = postService.createNewPost(post("contract draft"), user.getId());
+        assertThat(postSearchIndex.search(user.getId(), "contract", 10)).hasSize(2);
+
+        jdbcTemplate.update("UPDATE post SET deleted_at = ? WHERE id = ?", LocalDateTime.now(), removed.getId());
+        jdbcTemplate.update("UPDATE user_versions SET posts_version = posts_version + 1 WHERE user_id = ?", user.getId());
+
+        assertThat(postSearchIndex.search(user.getId(), "contract", 10)).containsExactly(kept.getId());
+    }
+
+    private Post insertElsewhere(String captions) {
+        Post post = post(captions);
+        post.setUser(user);
+        post.setCreatedAt(LocalDateTime.now());
+        return postRepository.save(post);
+    }
+
+    private static Post post(String captions) {
+        Post post = new Post();
+        post.setCaptions(captions);
+        post.setDocument("https://example.com/" + captions.replace(' ', '-') + ".pdf");
+        post.setDocumentName("file.pdf");
+        return post;
+    }
+}
@@ -0,0 +1,161 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.securemydocs.model.AuditAction;
+import com.securemydocs.repository.AuditChainHeadRepository;
+import com.securemydocs.response.AuditLogEntry;
+
+// Hash-chained audit segments: reopening resumes the chain, a damaged record moves
+// appending to a new segment, and a chain rewritten in full no longer matches its anchor.
+// The stores are built by hand over temporary directories; the context provides the
+// anchor table.
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:auditsegments;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class SegmentAuditLogStoreTests {
+
+    private static final int SEGMENT_BYTES = 1024;
+    private static final long USER = 42L;
+
+    @Autowired
+    private AuditChainHeadRepository auditChainHeadRepository;
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void reopenedStoreResumesTheChain() throws Exception {
+        SegmentAuditLogStore store = open(dir, "resume");
+        append(store, 20);
+        store.close();
+
+        SegmentAuditLogStore reopened = open(dir, "resume");
+        assertThat(reopened.findNewestFirst(USER)).hasSize(20).first().extracting(AuditLogEntry::id).isEqualTo(20L);
+        List<AuditLogEntry> more = append(reopened, 1);
+
+        assertThat(more.get(0).id()).isEqualTo(21L);
+        SegmentAuditLogStore.ChainReport report = reopened.verify();
+        assertThat(report.segments()).hasSizeGreaterThan(1)
+                .allSatisfy(segment -> assertThat(segment.valid() && segment.linked()).isTrue());
+        assertThat(report.anchoredSequence()).isEqualTo(20L);
+        assertThat(report.matchesAnchor()).isTrue();
+    }
+
+    @Test
+    void damagedRecordIsReportedAndAppendingMovesOn() throws Exception {
+        SegmentAuditLogStore store = open(dir, "damaged");
+        append(store, 3);
+        store.close();
+
+        // Flip a byte of the last record's name
+        Path segment = segments(dir).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int last = 64 + 2 * 80;
+            ByteBuffer name = ByteBuffer.allocate(1);
+            channel.read(name, last + 72);
+            name.put(0, (byte) (name.get(0) ^ 1)).rewind();
+            channel.write(name, last + 72);
+        }
+
+        SegmentAuditLogStore reopened = open(dir, "damaged");
+        assertThat(reopened.findNewestFirst(USER)).extracting(AuditLogEntry::id).containsExactly(2L, 1L);
+        assertThat(append(reopened, 1).get(0).id()).isEqualTo(4L);
+        assertThat(segments(dir)).hasSize(2);
+
+        SegmentAuditLogStore.ChainReport report = reopened.verify();
+        assertThat(report.segments().get(0).valid()).isFalse();
+        assertThat(report.segments().get(0).error()).contains("does not match its hash");
+        // The anchor from before the damage named record 3
+        assertThat(report.matchesAnchor()).isFalse();
+    }
+
+    @Test
+    void leftoverTemporarySegmentIsDiscarded() throws Exception {
+        Files.write(dir.resolve("segment-0000000000000001.log.tmp"), new byte[SEGMENT_BYTES]);
+
+        SegmentAuditLogStore store = open(dir, "leftover");
+        append(store, 1);
+
+        assertThat(segments(dir)).extracting(path -> path.getFileName().toString())
+                .containsExactly("segment-0000000000000001.log");
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files.filter(file -> file.toString().endsWith(".tmp"))).isEmpty();
+        }
+        assertThat(store.verify().segments()).singleElement().satisfies(segment -> assertThat(segment.valid()).isTrue());
+    }
+
+    @Test
+    void rewrittenChainNoLongerMatchesItsAnchor(@TempDir Path forged) throws Exception {
+        SegmentAuditLogStore store = open(dir, "rewritten");
+        append(store, 3);
+        store.close();
+
+        // A consistent chain of the same length with other entries, put in place of the real one
+        SegmentAuditLogStore forger = open(forged, "forger");
+        List<AuditLogWriter.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            entries.add(new AuditLogWriter.Entry(AuditAction.DELETE, "forged " + i, USER, LocalDateTime.now()));
+        }
+        forger.append(entries);
+        Files.copy(segments(forged).get(0), segments(dir).get(0), StandardCopyOption.REPLACE_EXISTING);
+
+        SegmentAuditLogStore reopened = open(dir, "rewritten");
+        SegmentAuditLogStore.ChainReport report = reopened.verify();
+
+        assertThat(report.segments()).allSatisfy(segment -> assertThat(segment.valid() && segment.linked()).isTrue());
+        assertThat(report.anchoredSequence()).isEqualTo(3L);
+        assertThat(report.matchesAnchor()).isFalse();
+    }
+
+    private SegmentAuditLogStore open(Path directory, String chainId) throws IOException {
+        SegmentAuditLogStore store = new SegmentAuditLogStore();
+        ReflectionTestUtils.setField(store, "auditChainHeadRepository", auditChainHeadRepository);
+        ReflectionTestUtils.setField(store, "dir", directory);
+        ReflectionTestUtils.setField(store, "segmentBytes", SEGMENT_BYTES);
+        ReflectionTestUtils.setField(store, "checkpointInterval", 4);
+        ReflectionTestUtils.setField(store, "forceEachBatch", true);
+        ReflectionTestUtils.setField(store, "chainId", chainId);
+        store.open();
+        return store;
+    }
+
+    // Names of 8 bytes, so every record takes 80
+    private static List<AuditLogEntry> append(SegmentAuditLogStore store, int count) {
+        List<AuditLogWriter.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            entries.add(new AuditLogWriter.Entry(AuditAction.UPLOAD, String.format("file%04d", i), USER, LocalDateTime.now()));
+        }
+        return store.append(entries);
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+}
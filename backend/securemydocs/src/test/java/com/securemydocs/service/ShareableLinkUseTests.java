@@ -0,0 +1,101 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import com.securemydocs.model.Post;
+import com.securemydocs.model.ShareableLink;
+import com.securemydocs.model.User;
+import com.securemydocs.repository.PostRepository;
+import com.securemydocs.repository.UserRepository;
+
+// Share link uses are counted in the database, so copies loaded before another use, as
+// another node would hold them, can neither lose a use nor go past max_uses
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:linkuses;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ShareableLinkUseTests {
+
+    @Autowired
+    private ShareableLinkService shareableLinkService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setEmail("links-" + System.nanoTime() + "@example.com");
+        user.setFirstName("Test");
+        user.setLastName("User");
+        user.setPassword("not-used");
+        user = userRepository.save(user);
+
+        post = new Post();
+        post.setCaptions("shared");
+        post.setDocument("https://example.com/file.pdf");
+        post.setUser(user);
+        post.setCreatedAt(LocalDateTime.now());
+        post = postRepository.save(post);
+    }
+
+    @Test
+    void copiesLoadedBeforeEachOtherCountEveryUseUpToTheLimit() throws Exception {
+        ShareableLink created = shareableLinkService.createShareableLink(post, LocalDateTime.now().plusDays(1), 2);
+        ShareableLink first = shareableLinkService.getValidLinkByToken(created.getToken());
+        ShareableLink second = shareableLinkService.getValidLinkByToken(created.getToken());
+        ShareableLink third = shareableLinkService.getValidLinkByToken(created.getToken());
+
+        assertThat(shareableLinkService.recordUse(first)).isTrue();
+        assertThat(shareableLinkService.recordUse(second)).isTrue();
+        assertThat(shareableLinkService.recordUse(third)).isFalse();
+        assertThat(useCount(created)).isEqualTo(2);
+    }
+
+    @Test
+    void deactivatedLinkIsNotUsedThroughAnOlderCopy() throws Exception {
+        ShareableLink created = shareableLinkService.createShareableLink(post, LocalDateTime.now().plusDays(1), null);
+        ShareableLink loaded = shareableLinkService.getValidLinkByToken(created.getToken());
+
+        shareableLinkService.deactivateLink(created.getId());
+
+        assertThat(shareableLinkService.recordUse(loaded)).isFalse();
+        assertThat(useCount(created)).isZero();
+    }
+
+    @Test
+    void deactivatingKeepsUsesCountedMeanwhile() throws Exception {
+        ShareableLink created = shareableLinkService.createShareableLink(post, LocalDateTime.now().plusDays(1), null);
+        ShareableLink loaded = shareableLinkService.getValidLinkByToken(created.getToken());
+        assertThat(shareableLinkService.recordUse(loaded)).isTrue();
+
+        shareableLinkService.deactivateLink(created.getId());
+
+        assertThat(useCount(created)).isEqualTo(1);
+    }
+
+    private int useCount(ShareableLink link) {
+        return jdbcTemplate.queryForObject("SELECT use_count FROM shareable_links WHERE id = ?", Integer.class, link.getId());
+    }
+}
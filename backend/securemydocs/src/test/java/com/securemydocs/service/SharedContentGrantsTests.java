@@ -0,0 +1,66 @@
+package com.securemydocs.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.securemydocs.config.JwtKeyring;
+import com.securemydocs.config.JwtProvider;
+import com.securemydocs.model.ShareableLink;
+
+// Content grants are checked by signature alone, so any node holding the keyring accepts them
+class SharedContentGrantsTests {
+
+    private final SharedContentGrants grants = new SharedContentGrants();
+
+    @Test
+    void acceptsGrantForItsOwnLinkOnly() {
+        ShareableLink link = link("token-a", LocalDateTime.now().plusDays(1));
+        String grant = grants.issue(link);
+
+        assertThat(grants.isValid(grant, "token-a")).isTrue();
+        assertThat(grants.isValid(grant, "token-b")).isFalse();
+        assertThat(new SharedContentGrants().isValid(grant, "token-a")).isTrue();
+    }
+
+    @Test
+    void rejectsTamperedAndMalformedGrants() {
+        String grant = grants.issue(link("token-a", LocalDateTime.now().plusDays(1)));
+        String[] parts = grant.split("\\.");
+        String extended = (Long.parseLong(parts[0]) + 3_600_000) + "." + parts[1] + "." + parts[2];
+
+        assertThat(grants.isValid(extended, "token-a")).isFalse();
+        assertThat(grants.isValid(parts[0] + "." + parts[1] + ".AAAA", "token-a")).isFalse();
+        assertThat(grants.isValid("not-a-grant", "token-a")).isFalse();
+        assertThat(grants.isValid("x.y.z", "token-a")).isFalse();
+        assertThat(grants.isValid(null, "token-a")).isFalse();
+    }
+
+    @Test
+    void expiresWithTheLink() {
+        String grant = grants.issue(link("token-a", LocalDateTime.now().minusSeconds(1)));
+
+        assertThat(grants.isValid(grant, "token-a")).isFalse();
+    }
+
+    @Test
+    void rejectsGrantOnceItsKeyIsRetired() {
+        JwtKeyring previous = JwtProvider.getKeyring();
+        String grant = grants.issue(link("token-a", LocalDateTime.now().plusDays(1)));
+        try {
+            JwtProvider.installKeyring(JwtKeyring.ephemeral());
+            assertThat(grants.isValid(grant, "token-a")).isFalse();
+        } finally {
+            JwtProvider.installKeyring(previous);
+        }
+    }
+
+    private static ShareableLink link(String token, LocalDateTime expiresAt) {
+        ShareableLink link = new ShareableLink();
+        link.setToken(token);
+        link.setExpiresAt(expiresAt);
+        return link;
+    }
+}
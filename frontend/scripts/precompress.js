@@ -0,0 +1,59 @@
+// Writes .br and .gz next to every compressible build output so the backend can serve
+// them directly instead of compressing on each request. Run by the Vite build (see
+// vite.config.js) or by hand on an existing directory: node scripts/precompress.js <dir>
+import { readdirSync, readFileSync, statSync, writeFileSync } from "node:fs";
+import { join, resolve } from "node:path";
+import { fileURLToPath } from "node:url";
+import { brotliCompressSync, constants, gzipSync } from "node:zlib";
+
+const COMPRESSIBLE = /\.(js|mjs|css|html|svg|json|txt|map)$/;
+const MIN_SIZE = 1024;
+
+export function precompress(dir) {
+  for (const name of readdirSync(dir)) {
+    const file = join(dir, name);
+    if (statSync(file).isDirectory()) {
+      precompress(file);
+      continue;
+    }
+    if (!COMPRESSIBLE.test(name)) {
+      continue;
+    }
+    const content = readFileSync(file);
+    if (content.length < MIN_SIZE) {
+      continue;
+    }
+    const brotli = brotliCompressSync(content, {
+      params: {
+        [constants.BROTLI_PARAM_QUALITY]: constants.BROTLI_MAX_QUALITY,
+        [constants.BROTLI_PARAM_SIZE_HINT]: content.length,
+      },
+    });
+    const gzip = gzipSync(content, { level: 9 });
+    // A variant that isn't smaller would only cost a lookup
+    if (brotli.length < content.length) {
+      writeFileSync(file + ".br", brotli);
+    }
+    if (gzip.length < content.length) {
+      writeFileSync(file + ".gz", gzip);
+    }
+  }
+}
+
+export default function precompressPlugin() {
+  let outDir;
+  return {
+    name: "precompress",
+    apply: "build",
+    configResolved(config) {
+      outDir = resolve(config.root, config.build.outDir);
+    },
+    closeBundle() {
+      precompress(outDir);
+    },
+  };
+}
+
+if (process.argv[1] && resolve(process.argv[1]) === fileURLToPath(import.meta.url)) {
+  precompress(resolve(process.argv[2] ?? "dist"));
+}
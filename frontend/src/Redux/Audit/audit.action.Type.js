@@ -1,6 +1,7 @@
-export const GET_AUDIT_LOGS_REQUEST = 'GET_AUDIT_LOGS_REQUEST';
-export const GET_AUDIT_LOGS_SUCCESS = 'GET_AUDIT_LOGS_SUCCESS';
-export const GET_AUDIT_LOGS_FAILURE = 'GET_AUDIT_LOGS_FAILURE';
+// Get audit logs one page at a time (keyset cursor)
+export const GET_AUDIT_LOG_PAGE_REQUEST = 'GET_AUDIT_LOG_PAGE_REQUEST';
+export const GET_AUDIT_LOG_PAGE_SUCCESS = 'GET_AUDIT_LOG_PAGE_SUCCESS';
+export const GET_AUDIT_LOG_PAGE_FAILURE = 'GET_AUDIT_LOG_PAGE_FAILURE';
 
 export const CREATE_AUDIT_LOG_REQUEST = 'CREATE_AUDIT_LOG_REQUEST';
 export const CREATE_AUDIT_LOG_SUCCESS = 'CREATE_AUDIT_LOG_SUCCESS';
@@ -1,30 +1,35 @@
 import { api } from "../../config/Api";
 import {
-  GET_AUDIT_LOGS_REQUEST,
-  GET_AUDIT_LOGS_SUCCESS,
-  GET_AUDIT_LOGS_FAILURE,
+  GET_AUDIT_LOG_PAGE_REQUEST,
+  GET_AUDIT_LOG_PAGE_SUCCESS,
+  GET_AUDIT_LOG_PAGE_FAILURE,
   CREATE_AUDIT_LOG_REQUEST,
   CREATE_AUDIT_LOG_SUCCESS,
   CREATE_AUDIT_LOG_FAILURE,
   CLEAR_AUDIT_ERROR
 } from "./audit.action.Type";
 
-// Get audit logs for current user only
-export const getAuditLogsAction = () => async (dispatch) => {
-  dispatch({ type: GET_AUDIT_LOGS_REQUEST });
-  try {
-    const { data } = await api.get("/api/audit-logs/current-user");
-    dispatch({ type: GET_AUDIT_LOGS_SUCCESS, payload: data });
-    return { success: true, data };
-  } catch (error) {
-    const errorMsg = error.response?.data?.message || error.message || "Failed to fetch audit logs";
-    dispatch({
-      type: GET_AUDIT_LOGS_FAILURE,
-      payload: errorMsg,
-    });
-    return { success: false, error: errorMsg };
-  }
-};
+// Loads the next page of the current user's audit logs; pass cursor = null to start
+// from the top. filters: { action, from, to } (ISO local date-times, to exclusive)
+export const getAuditLogPageAction =
+  (cursor = null, filters = {}) =>
+  async (dispatch) => {
+    dispatch({ type: GET_AUDIT_LOG_PAGE_REQUEST, payload: { append: !!cursor } });
+    try {
+      const { data } = await api.get("/api/audit-logs", {
+        params: { ...filters, ...(cursor ? { cursor } : {}) },
+      });
+      dispatch({
+        type: GET_AUDIT_LOG_PAGE_SUCCESS,
+        payload: { ...data, append: !!cursor },
+      });
+      return { success: true, data };
+    } catch (error) {
+      const errorMsg = error.response?.data?.message || error.message || "Failed to fetch audit logs";
+      dispatch({ type: GET_AUDIT_LOG_PAGE_FAILURE, payload: errorMsg });
+      return { success: false, error: errorMsg };
+    }
+  };
 
 // Create a new audit log entry for current user
 export const createAuditLogAction = (logData) => async (dispatch) => {
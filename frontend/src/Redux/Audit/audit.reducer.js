@@ -1,7 +1,7 @@
 import {
-  GET_AUDIT_LOGS_REQUEST,
-  GET_AUDIT_LOGS_SUCCESS,
-  GET_AUDIT_LOGS_FAILURE,
+  GET_AUDIT_LOG_PAGE_REQUEST,
+  GET_AUDIT_LOG_PAGE_SUCCESS,
+  GET_AUDIT_LOG_PAGE_FAILURE,
   CREATE_AUDIT_LOG_REQUEST,
   CREATE_AUDIT_LOG_SUCCESS,
   CREATE_AUDIT_LOG_FAILURE,
@@ -10,7 +10,9 @@ import {
 
 const initialState = {
   logs: [],
+  nextCursor: null, // Cursor for the next page, null when everything is loaded
   loading: false,
+  loadingMore: false,
   error: null,
   creating: false,
   createError: null
@@ -19,27 +21,32 @@ const initialState = {
 export const auditReducer = (state = initialState, action) => {
   switch (action.type) {
     // Get audit logs cases
-    case GET_AUDIT_LOGS_REQUEST:
+    case GET_AUDIT_LOG_PAGE_REQUEST:
       return {
         ...state,
-        loading: true,
+        loading: !action.payload.append,
+        loadingMore: action.payload.append,
         error: null
       };
 
-    case GET_AUDIT_LOGS_SUCCESS:
+    case GET_AUDIT_LOG_PAGE_SUCCESS:
       return {
         ...state,
         loading: false,
-        logs: action.payload,
+        loadingMore: false,
+        logs: action.payload.append
+          ? [...state.logs, ...action.payload.items]
+          : action.payload.items,
+        nextCursor: action.payload.nextCursor,
         error: null
       };
 
-    case GET_AUDIT_LOGS_FAILURE:
+    case GET_AUDIT_LOG_PAGE_FAILURE:
       return {
         ...state,
         loading: false,
-        error: action.payload,
-        logs: []
+        loadingMore: false,
+        error: action.payload
       };
 
     // Create audit log cases
@@ -12,6 +12,11 @@ export const GET_ALL_POST_REQUEST = "GET_ALL_POST_REQUEST";
 export const GET_ALL_POST_SUCCESS = "GET_ALL_POST_SUCCESS";
 export const GET_ALL_POST_FAILURE = "GET_ALL_POST_FAILURE";
 
+// Get posts one page at a time (keyset cursor)
+export const GET_POST_PAGE_REQUEST = "GET_POST_PAGE_REQUEST";
+export const GET_POST_PAGE_SUCCESS = "GET_POST_PAGE_SUCCESS";
+export const GET_POST_PAGE_FAILURE = "GET_POST_PAGE_FAILURE";
+
 // Delete post
 export const DELETE_POST_REQUEST = "DELETE_POST_REQUEST";
 export const DELETE_POST_SUCCESS = "DELETE_POST_SUCCESS";
@@ -9,6 +9,9 @@ import {
   GET_ALL_POST_FAILURE,
   GET_ALL_POST_REQUEST,
   GET_ALL_POST_SUCCESS,
+  GET_POST_PAGE_FAILURE,
+  GET_POST_PAGE_REQUEST,
+  GET_POST_PAGE_SUCCESS,
 } from "./post.action.Type";
 
 export const createPostAction = (postData) => async (dispatch) => {
@@ -39,6 +42,27 @@ export const getAllPostAction = () => async (dispatch) => {
   }
 };
 
+// Loads the next page of posts; pass cursor = null to start from the top
+export const getPostPageAction =
+  (cursor = null, filters = {}) =>
+  async (dispatch) => {
+    dispatch({ type: GET_POST_PAGE_REQUEST, payload: { append: !!cursor } });
+    try {
+      const { data } = await api.get("/api/posts/page", {
+        params: { ...filters, ...(cursor ? { cursor } : {}) },
+      });
+      dispatch({
+        type: GET_POST_PAGE_SUCCESS,
+        payload: { ...data, append: !!cursor },
+      });
+      return { success: true, data };
+    } catch (error) {
+      const errorMsg = error.response?.data?.message || error.message;
+      dispatch({ type: GET_POST_PAGE_FAILURE, payload: errorMsg });
+      return { success: false, error: errorMsg };
+    }
+  };
+
 export const deletePostAction = (postId) => async (dispatch) => {
   dispatch({ type: DELETE_POST_REQUEST });
   try {
@@ -8,11 +8,16 @@ import {
   GET_ALL_POST_FAILURE,
   GET_ALL_POST_REQUEST,
   GET_ALL_POST_SUCCESS,
+  GET_POST_PAGE_FAILURE,
+  GET_POST_PAGE_REQUEST,
+  GET_POST_PAGE_SUCCESS,
 } from "./post.action.Type";
 
 const initialState = {
   posts: [], // All posts
   currentPost: null,
+  nextCursor: null, // Cursor for the next page, null when everything is loaded
+  loadingMore: false,
   loading: false,
   error: null,
   comments: [],
@@ -31,6 +36,14 @@ export const postReducer = (state = initialState, action) => {
         error: null,
       };
 
+    case GET_POST_PAGE_REQUEST:
+      return {
+        ...state,
+        loading: !action.payload.append,
+        loadingMore: action.payload.append,
+        error: null,
+      };
+
     // Handle success cases
     case CREATE_POST_SUCCESS:
       return {
@@ -50,6 +63,18 @@ export const postReducer = (state = initialState, action) => {
         comments: action.payload.flatMap((post) => post.comments || []), // flatten all comments from all posts
       };
 
+    case GET_POST_PAGE_SUCCESS:
+      return {
+        ...state,
+        loading: false,
+        loadingMore: false,
+        error: null,
+        posts: action.payload.append
+          ? [...state.posts, ...action.payload.items]
+          : action.payload.items,
+        nextCursor: action.payload.nextCursor,
+      };
+
     case DELETE_POST_SUCCESS:
       return {
         ...state,
@@ -62,9 +87,11 @@ export const postReducer = (state = initialState, action) => {
     case CREATE_POST_FAILURE:
     case GET_ALL_POST_FAILURE:
     case DELETE_POST_FAILURE:
+    case GET_POST_PAGE_FAILURE:
       return {
         ...state,
         loading: false,
+        loadingMore: false,
         error: action.payload,
       };
 
@@ -1,6 +1,6 @@
 import React, { useEffect, useState, useMemo } from "react";
 import { useDispatch, useSelector } from "react-redux";
-import { getAuditLogsAction } from "../../Redux/Audit/audit.action";
+import { getAuditLogPageAction } from "../../Redux/Audit/audit.action";
 import {
   Box,
   Typography,
@@ -39,9 +39,16 @@ import {
 } from "@mui/icons-material";
 import ErrorBoundary from "../Document/ErrorBoudary";
 
+// Actions the backend records; offered in the filter even before one has been loaded
+const KNOWN_ACTIONS = ["UPLOAD", "DELETE", "ENABLE_OTP", "DISABLE_OTP", "IMPORT"];
+
+const pad = (n) => String(n).padStart(2, "0");
+
 const AuditLog = () => {
   const dispatch = useDispatch();
-  const { logs, loading, error } = useSelector((store) => store.audit);
+  const { logs, nextCursor, loading, loadingMore, error } = useSelector(
+    (store) => store.audit
+  );
   const { posts } = useSelector((store) => store.post);
   const { auth } = useSelector((store) => store);
   const theme = useTheme();
@@ -87,17 +94,34 @@ const AuditLog = () => {
     setSnackbarOpen(true);
   };
 
-  // Fetch audit logs on mount
+  // Action and date are filtered by the server, which pages through the history; the
+  // date picker gives a local day, sent as the range [day, next day)
+  const serverFilters = useMemo(() => {
+    const filters = {};
+    if (actionFilter !== "all") {
+      filters.action = actionFilter;
+    }
+    if (dateFilter) {
+      const next = new Date(`${dateFilter}T00:00:00`);
+      next.setDate(next.getDate() + 1);
+      filters.from = `${dateFilter}T00:00:00`;
+      filters.to = `${next.getFullYear()}-${pad(next.getMonth() + 1)}-${pad(
+        next.getDate()
+      )}T00:00:00`;
+    }
+    return filters;
+  }, [actionFilter, dateFilter]);
+
+  // Fetch the first page on mount and whenever the server-side filters change
   useEffect(() => {
+    setPage(0);
     fetchLogs();
-  }, [dispatch]);
+  }, [dispatch, serverFilters]);
 
   const fetchLogs = () => {
-    dispatch(getAuditLogsAction())
+    dispatch(getAuditLogPageAction(null, serverFilters))
       .then((result) => {
-        if (result.success) {
-          showSnackbar("Audit logs loaded successfully", "success");
-        } else {
+        if (!result.success) {
           showSnackbar(result.error, "error");
         }
       })
@@ -145,22 +169,6 @@ const AuditLog = () => {
       );
     }
 
-    // Apply action filter
-    if (actionFilter !== "all") {
-      filteredLogs = filteredLogs.filter(
-        (log) => log.action && log.action === actionFilter
-      );
-    }
-
-    // Apply date filter
-    if (dateFilter) {
-      const filterDate = new Date(dateFilter).toDateString();
-      filteredLogs = filteredLogs.filter(
-        (log) =>
-          log.timestamp && new Date(log.timestamp).toDateString() === filterDate
-      );
-    }
-
     // Apply sorting
     if (sortConfig.key) {
       filteredLogs.sort((a, b) => {
@@ -197,7 +205,7 @@ const AuditLog = () => {
     }
 
     return filteredLogs;
-  }, [enhancedLogs, searchTerm, sortConfig, actionFilter, dateFilter]);
+  }, [enhancedLogs, searchTerm, sortConfig]);
 
   // Handle sort
   const handleSort = (key) => {
@@ -229,6 +237,12 @@ const AuditLog = () => {
     return Array.from(actions);
   }, [safeLogs]);
 
+  // Filter choices: the known actions plus any other action already loaded
+  const actionOptions = useMemo(
+    () => Array.from(new Set([...KNOWN_ACTIONS, ...uniqueActions])),
+    [uniqueActions]
+  );
+
   // Clear all filters
   const clearFilters = () => {
     setSearchTerm("");
@@ -320,10 +334,11 @@ const AuditLog = () => {
           <Card elevation={2}>
             <CardContent>
               <Typography color="textSecondary" gutterBottom>
-                Total Logs
+                Loaded Logs
               </Typography>
               <Typography variant="h5" component="div">
                 {safeLogs.length}
+                {nextCursor ? "+" : ""}
               </Typography>
             </CardContent>
           </Card>
@@ -409,7 +424,7 @@ const AuditLog = () => {
         >
           All Actions
         </MenuItem>
-        {uniqueActions.map((action) => (
+        {actionOptions.map((action) => (
           <MenuItem
             key={action}
             selected={actionFilter === action}
@@ -572,6 +587,20 @@ const AuditLog = () => {
             sx={{ mt: 2 }}
           />
         )}
+
+        {nextCursor && (
+          <Box display="flex" justifyContent="center" mt={2}>
+            <Button
+              variant="outlined"
+              disabled={loadingMore}
+              onClick={() =>
+                dispatch(getAuditLogPageAction(nextCursor, serverFilters))
+              }
+            >
+              {loadingMore ? "Loading..." : "Load more"}
+            </Button>
+          </Box>
+        )}
       </ErrorBoundary>
 
       {/* Global snackbar for notifications */}
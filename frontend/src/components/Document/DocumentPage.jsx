@@ -1,7 +1,7 @@
 import React, { useEffect, useState } from "react";
 import { useDispatch, useSelector } from "react-redux";
 import {
-  getAllPostAction,
+  getPostPageAction,
   deletePostAction,
 } from "../../Redux/Post/post.action";
 import FileTable from "./FileTable";
@@ -11,13 +11,16 @@ import {
   CircularProgress,
   Alert,
   Snackbar,
+  Button,
 } from "@mui/material";
 import { api } from "../../config/Api";
 import ErrorBoundary from "./ErrorBoudary";
 
 const DocumentPage = () => {
   const dispatch = useDispatch();
-  const { posts, loading, error } = useSelector((store) => store.post);
+  const { posts, loading, loadingMore, nextCursor, error } = useSelector(
+    (store) => store.post
+  );
   const { auth } = useSelector((store) => store);
   const [snackbarOpen, setSnackbarOpen] = useState(false);
   const [snackbarMessage, setSnackbarMessage] = useState("");
@@ -30,7 +33,7 @@ const DocumentPage = () => {
   };
 
   useEffect(() => {
-    dispatch(getAllPostAction());
+    dispatch(getPostPageAction());
   }, [dispatch]);
 
   const handleDelete = async (postId) => {
@@ -56,7 +59,7 @@ const DocumentPage = () => {
       );
 
       if (response.status === 200) {
-        dispatch(getAllPostAction());
+        dispatch(getPostPageAction());
         showSnackbar(
           `OTP protection ${enable ? "enabled" : "disabled"} successfully`,
           "success"
@@ -118,6 +121,18 @@ const DocumentPage = () => {
         />
       </ErrorBoundary>
 
+      {nextCursor && (
+        <Box display="flex" justifyContent="center" mt={2}>
+          <Button
+            variant="outlined"
+            disabled={loadingMore}
+            onClick={() => dispatch(getPostPageAction(nextCursor))}
+          >
+            {loadingMore ? "Loading..." : "Load more"}
+          </Button>
+        </Box>
+      )}
+
       {/* Global snackbar for notifications */}
       <Snackbar
         open={snackbarOpen}
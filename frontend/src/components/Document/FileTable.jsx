@@ -1,4 +1,4 @@
-import React, { useState } from "react";
+import React, { useEffect, useState } from "react";
 import {
   Table,
   TableBody,
@@ -55,6 +55,41 @@ import OTPModal from "./OTPModal";
 import { api } from "../../config/Api";
 import ShareLinkModal from "./ShareLinkModal";
 
+// Previews generated by the backend are fetched once per post with the auth header
+// and kept as object URLs, so the table never downloads full-size originals
+const thumbnailUrls = new Map();
+
+const PostThumbnail = ({ file, size }) => {
+  const [src, setSrc] = useState(() =>
+    file.thumbnail ? thumbnailUrls.get(file.id) : file.image
+  );
+
+  useEffect(() => {
+    if (!file.thumbnail) {
+      setSrc(file.image && !file.image.startsWith("blob:") ? file.image : undefined);
+      return;
+    }
+    if (thumbnailUrls.has(file.id)) {
+      setSrc(thumbnailUrls.get(file.id));
+      return;
+    }
+    let cancelled = false;
+    api
+      .get(`/api/posts/${file.id}/thumbnail`, { responseType: "blob" })
+      .then((response) => {
+        const url = URL.createObjectURL(response.data);
+        thumbnailUrls.set(file.id, url);
+        if (!cancelled) setSrc(url);
+      })
+      .catch(() => {});
+    return () => {
+      cancelled = true;
+    };
+  }, [file.id, file.thumbnail, file.image]);
+
+  return <Avatar variant="rounded" src={src} sx={{ width: size, height: size }} />;
+};
+
 const FileTable = ({
   files = [],
   onDelete,
@@ -429,17 +464,13 @@ const FileTable = ({
       <Star color="warning" fontSize="small" />
     ) : null;
 
-    if (file.image) {
+    if (file.image || file.thumbnail) {
       return (
         <Badge
           badgeContent={badgeContent}
           anchorOrigin={{ vertical: "top", horizontal: "left" }}
         >
-          <Avatar
-            variant="rounded"
-            src={file.image}
-            sx={{ width: size, height: size }}
-          />
+          <PostThumbnail file={file} size={size} />
         </Badge>
       );
     }
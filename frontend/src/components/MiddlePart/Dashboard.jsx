@@ -1,7 +1,7 @@
 import React, { useEffect, useMemo, useState } from "react";
 import { useDispatch, useSelector } from "react-redux";
 import { getAllPostAction } from "../../Redux/Post/post.action";
-import { getAuditLogsAction } from "../../Redux/Audit/audit.action";
+import { getAuditLogPageAction } from "../../Redux/Audit/audit.action";
 import {
   Box,
   Typography,
@@ -71,7 +71,7 @@ const Dashboard = () => {
   // Fetch data on component mount
   useEffect(() => {
     dispatch(getAllPostAction());
-    dispatch(getAuditLogsAction());
+    dispatch(getAuditLogPageAction());
   }, [dispatch]);
 
   // Filter files from posts